@@ -0,0 +1,153 @@
+package PLDI;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+public class AffineForm {
+
+	// Implementation of affine forms x0 + x1*e1 + ... + xn*en + err*e*
+	// (x0,[x1,...,xn],err,p) represents the set of values
+	// {x0/2^{p} + sum_i xi*ei/2^{p} + err*e*/2^{p} : ei,e* in [-1,1]}
+	// The noise symbol ei belongs to the i-th input of a function, so that
+	// repeated uses of the same input share it and cancel, while err collects
+	// the error introduced by non-linear operations.
+
+	private BigInteger center;
+	private BigInteger[] partials;
+	private BigInteger error;
+	private int prec;
+
+	// Constructors
+
+	public AffineForm(BigInteger center, BigInteger[] partials, BigInteger error, int prec) {
+		this.center = center;
+		this.partials = partials;
+		this.error = error;
+		this.prec = prec;
+	}
+
+	// [l,r] -> (l+r)/2 + e_i*(r-l)/2, represented on precision-level p+1
+	public static AffineForm fromInput(VariableIntervalCode x, int i, int arity) {
+		BigInteger[] partials = zeros(arity);
+		partials[i] = x.getRightCode().subtract(x.getLeftCode());
+		return new AffineForm(x.getLeftCode().add(x.getRightCode()), partials, BigInteger.ZERO, x.getPrec() + 1);
+	}
+
+	// [l,r] -> (l+r)/2 + e*(r-l)/2, uncorrelated with every input
+	public static AffineForm fromInterval(VariableIntervalCode x, int arity) {
+		return new AffineForm(x.getLeftCode().add(x.getRightCode()), zeros(arity),
+				x.getRightCode().subtract(x.getLeftCode()), x.getPrec() + 1);
+	}
+
+	private static BigInteger[] zeros(int n) {
+		BigInteger[] zs = new BigInteger[n];
+		Arrays.fill(zs, BigInteger.ZERO);
+		return zs;
+	}
+
+	// Getters
+
+	public BigInteger getCenter() {
+		return center;
+	}
+
+	public BigInteger getError() {
+		return error;
+	}
+
+	public int getPrec() {
+		return prec;
+	}
+
+	public int getArity() {
+		return partials.length;
+	}
+
+	public BigInteger radius() {
+		BigInteger r = error;
+		for (BigInteger a : partials) {
+			r = r.add(a.abs());
+		}
+		return r;
+	}
+
+	public VariableIntervalCode toVariableIntervalCode() {
+		BigInteger r = radius();
+		return new VariableIntervalCode(center.subtract(r), center.add(r), prec);
+	}
+
+	// Structural
+
+	public AffineForm down(int n) {
+		if (n <= 0) {
+			return this;
+		}
+		BigInteger[] ps = new BigInteger[partials.length];
+		for (int i = 0; i < ps.length; i++) {
+			ps[i] = partials[i].shiftLeft(n);
+		}
+		return new AffineForm(center.shiftLeft(n), ps, error.shiftLeft(n), prec + n);
+	}
+
+	// Arithmetic
+
+	public AffineForm negate() {
+		BigInteger[] ps = new BigInteger[partials.length];
+		for (int i = 0; i < ps.length; i++) {
+			ps[i] = partials[i].negate();
+		}
+		return new AffineForm(center.negate(), ps, error, prec);
+	}
+
+	public AffineForm abs() {
+		VariableIntervalCode x = toVariableIntervalCode();
+		if (x.getLeftCode().signum() >= 0) {
+			return this;
+		} else if (x.getRightCode().signum() <= 0) {
+			return negate();
+		} else {
+			return fromInterval(x.abs(), partials.length);
+		}
+	}
+
+	public AffineForm add(AffineForm y) {
+		AffineForm x = down(y.prec - prec);
+		y = y.down(prec - y.prec);
+		BigInteger[] ps = zeros(Math.max(x.partials.length, y.partials.length));
+		for (int i = 0; i < ps.length; i++) {
+			if (i < x.partials.length) {
+				ps[i] = ps[i].add(x.partials[i]);
+			}
+			if (i < y.partials.length) {
+				ps[i] = ps[i].add(y.partials[i]);
+			}
+		}
+		return new AffineForm(x.center.add(y.center), ps, x.error.add(y.error), x.prec);
+	}
+
+	/*
+	 * (c + u) * (d + v) = cd + c*v + d*u + u*v, where the linear parts of c*v
+	 * and d*u are kept per noise symbol, and |u*v| <= rad(u) * rad(v) is moved
+	 * into the error term together with the scaled errors of both operands.
+	 */
+	public AffineForm multiply(AffineForm y) {
+		BigInteger[] ps = zeros(Math.max(partials.length, y.partials.length));
+		for (int i = 0; i < ps.length; i++) {
+			if (i < y.partials.length) {
+				ps[i] = ps[i].add(center.multiply(y.partials[i]));
+			}
+			if (i < partials.length) {
+				ps[i] = ps[i].add(y.center.multiply(partials[i]));
+			}
+		}
+		BigInteger err = center.abs().multiply(y.error)
+				.add(y.center.abs().multiply(error))
+				.add(radius().multiply(y.radius()));
+		return new AffineForm(center.multiply(y.center), ps, err, prec + y.prec);
+	}
+
+	public String toString() {
+		return "(" + center + "," + Arrays.toString(partials) + "," + error + "," + prec + ")";
+	}
+
+}
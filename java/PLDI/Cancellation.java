@@ -0,0 +1,107 @@
+package PLDI;
+
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/*
+ * A cancellation context, with an optional deadline, for approximations and
+ * searches.
+ *
+ * A context is installed on the current thread for the duration of run(),
+ * and every approximation of a real, every step of the inverse's precision
+ * loop, every continuity oracle and every step of a search calls check().
+ * Once the context is cancelled, its deadline has passed or the thread has
+ * been interrupted, the next check throws a SearchCancelledException, so a
+ * computation that would never finish (e.g. the inverse of 0) stops within
+ * one approximation step.
+ *
+ * Without a context, check() only looks at the interrupt flag, so existing
+ * code behaves as before. The context is not inherited by other threads:
+ * tasks handed to a thread pool should be wrapped with bind().
+ */
+public class Cancellation {
+
+	private static final ThreadLocal<Cancellation> CURRENT = new ThreadLocal<>();
+
+	private volatile boolean cancelled = false;
+	private final long deadline;
+
+	// Constructors
+
+	public Cancellation() {
+		this.deadline = Long.MAX_VALUE;
+	}
+
+	private Cancellation(long deadline) {
+		this.deadline = deadline;
+	}
+
+	// A context that is cancelled once the given time has passed from now
+	public static Cancellation withTimeout(long time, TimeUnit unit) {
+		return new Cancellation(System.nanoTime() + unit.toNanos(time));
+	}
+
+	public static Cancellation current() {
+		return CURRENT.get();
+	}
+
+	// Cancelling
+
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled || (deadline != Long.MAX_VALUE && System.nanoTime() - deadline >= 0);
+	}
+
+	public static void check() {
+		Cancellation c = CURRENT.get();
+		if (c != null && c.isCancelled()) {
+			throw new SearchCancelledException(c.cancelled ? "Cancelled" : "Deadline passed");
+		}
+		if (Thread.currentThread().isInterrupted()) {
+			throw new SearchCancelledException("Interrupted");
+		}
+	}
+
+	// Running
+
+	/*
+	 * Runs the body with this context installed on the current thread,
+	 * restoring the previous context afterwards.
+	 */
+	public <T> T run(Supplier<T> body) {
+		Cancellation previous = CURRENT.get();
+		CURRENT.set(this);
+		try {
+			return body.get();
+		} finally {
+			if (previous == null) {
+				CURRENT.remove();
+			} else {
+				CURRENT.set(previous);
+			}
+		}
+	}
+
+	/*
+	 * As run(), but returns an empty result when the body is cancelled,
+	 * i.e. when it is undecided within this context.
+	 */
+	public <T> Optional<T> attempt(Supplier<T> body) {
+		try {
+			return Optional.ofNullable(run(body));
+		} catch (SearchCancelledException e) {
+			return Optional.empty();
+		}
+	}
+
+	// The body as a task that runs with this context on whichever thread calls it
+	public <T> Callable<T> bind(Supplier<T> body) {
+		return () -> run(body);
+	}
+
+}
@@ -0,0 +1,435 @@
+package PLDI;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/*
+ * Periodically saves the state of a long-running search or optimisation to a
+ * file, so that a run can be resumed after the process dies.
+ *
+ * Every call to tick() counts one step of the search. Every so many steps the
+ * engine's state is taken: this only copies the lists of (immutable) interval
+ * codes, and the encoding and writing happen on a background thread. If the
+ * previous checkpoint is still being written, the step is skipped rather than
+ * waiting for it. Each checkpoint is written to a temporary file that is then
+ * moved over the previous one, so the file always holds a complete state.
+ *
+ * The file format is a small header followed by the state, where integers
+ * are zig-zag varints, strings and BigIntegers are a varint length followed
+ * by their UTF-8 or two's complement bytes. The header names the engine that
+ * wrote the state and the problem it was solving (see problem), and a state
+ * is only loaded by the same engine for the same problem. A problem with a
+ * part that has no key (e.g. a function built from lambdas) cannot be told
+ * apart from another, so it is only checkpointed under a name given by the
+ * caller, which then vouches for it.
+ *
+ * A write that failed on the background thread is reported by the next call
+ * to tick() or save().
+ */
+public class Checkpoint {
+
+	private static final int MAGIC = 0x54425243; // "TBRC"
+	private static final int VERSION = 2;
+
+	private Path file;
+	private int every;
+	private String name; // The name of the problem given by the caller, or null
+	private long steps = 0;
+	private ExecutorService writer;
+	private Future<?> pending;
+
+	/*
+	 * The state of a search: its frontier, answers, candidates, incumbent,
+	 * upper bound and counters. Engines use the parts that they need, and any
+	 * interval code may be null.
+	 */
+	public static class State {
+		public String engine;
+		public String problem;
+		public List<Pair<SpecificIntervalCode,VariableIntervalCode>> frontier = new ArrayList<>();
+		public List<Pair<SpecificIntervalCode,VariableIntervalCode>> answers = new ArrayList<>();
+		public List<Pair<SpecificIntervalCode,VariableIntervalCode>> candidates = new ArrayList<>();
+		public Pair<SpecificIntervalCode,VariableIntervalCode> incumbent = new Pair<>(null, null);
+		public VariableIntervalCode bound;
+		public long[] counters = new long[0];
+
+		public State(String engine, String problem) {
+			this.engine = engine;
+			this.problem = problem;
+		}
+	}
+
+	// Constructors
+
+	public Checkpoint(Path file, int every) {
+		this(file, every, null);
+	}
+
+	/*
+	 * A checkpoint for the problem with the given name, which is written to
+	 * the header with the problem and must match to resume. The name is
+	 * needed when the problem has parts without keys.
+	 */
+	public Checkpoint(Path file, int every, String name) {
+		this.file = file;
+		this.every = every;
+		this.name = name;
+		this.writer = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "checkpoint-writer");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	// Saving and loading
+
+	public void tick(Supplier<State> snapshot) {
+		steps++;
+		if (steps % every != 0) {
+			return;
+		}
+		if (pending != null) {
+			if (!pending.isDone()) {
+				return;
+			}
+			await(pending);
+		}
+		State state = snapshot.get();
+		pending = writer.submit(() -> write(state));
+	}
+
+	/*
+	 * Writes the given state now, waiting for it to reach the disk.
+	 */
+	public void save(State state) {
+		if (pending != null) {
+			await(pending);
+		}
+		pending = writer.submit(() -> write(state));
+		await(pending);
+	}
+
+	// Waits for a write, and rethrows its failure
+	private void await(Future<?> write) {
+		try {
+			write.get();
+		} catch (ExecutionException e) {
+			pending = null;
+			throw new IllegalStateException("Checkpoint failed", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Checkpoint interrupted", e);
+		}
+	}
+
+	/*
+	 * Returns the last state saved by the given engine for the given problem,
+	 * or null if there is none. The state must have the given number of
+	 * counters. A state saved by another engine or for another problem, or
+	 * that is not a complete state, is an error rather than a fresh start, so
+	 * that a mistaken path does not silently lose the checkpoint. So is a
+	 * problem that cannot be identified (see identify).
+	 */
+	public State load(String engine, String problem, int counters) {
+		String id = identify(problem);
+		if (!Files.exists(file)) {
+			return null;
+		}
+		State state;
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+			state = read(new DataInputStream(in));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (!state.engine.equals(engine)) {
+			throw new IllegalStateException("Checkpoint " + file + " was saved by " + state.engine + ", not " + engine);
+		}
+		if (!state.problem.equals(id)) {
+			throw new IllegalStateException("Checkpoint " + file + " was saved for another problem");
+		}
+		if (state.counters.length != counters) {
+			throw new IllegalStateException("Checkpoint " + file + " has " + state.counters.length
+					+ " counters, not " + counters);
+		}
+		return state;
+	}
+
+	/*
+	 * A digest of a problem for the header, from its parts: functions,
+	 * predicates and reals by their structural identities (see
+	 * FunctionCode.getKey), and anything else by its string. It is null if a
+	 * part is only known by its identity (a function, predicate or real
+	 * without a key, or an object such as a lambda whose string is its
+	 * identity), since that identity does not outlive the process.
+	 */
+	public static String problem(Object... parts) {
+		String described = describe(Arrays.asList(parts));
+		if (described == null) {
+			return null;
+		}
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(described.getBytes(StandardCharsets.UTF_8));
+			return new BigInteger(1, digest).toString(16);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	// The description of the part, or null if some of it is only known by its identity
+	private static String describe(Object part) {
+		if (part instanceof List) {
+			List<String> described = new ArrayList<>();
+			for (Object p : (List<?>) part) {
+				String d = describe(p);
+				if (d == null) {
+					return null;
+				}
+				described.add(d);
+			}
+			return described.toString();
+		}
+		if (part instanceof FunctionCode) {
+			Object key = ((FunctionCode) part).getKey();
+			return key == part ? null : describe(key);
+		}
+		if (part instanceof PredicateCode) {
+			Object key = ((PredicateCode) part).getKey();
+			return key == part ? null : describe(key);
+		}
+		if (part instanceof TernaryBoehmReal) {
+			Object key = ((TernaryBoehmReal) part).getKey();
+			return key == part ? null : describe(key);
+		}
+		if (part != null && identityOnly(part)) {
+			return null;
+		}
+		return String.valueOf(part);
+	}
+
+	// True if the string of the object is only its class and identity
+	private static boolean identityOnly(Object part) {
+		try {
+			return part.getClass().getMethod("toString").getDeclaringClass() == Object.class;
+		} catch (NoSuchMethodException e) {
+			return true;
+		}
+	}
+
+	/*
+	 * The problem as written to the header: its digest, combined with the
+	 * name of the checkpoint if it has one. A problem that has no digest can
+	 * only be identified by a name, so without one it is refused.
+	 */
+	private String identify(String problem) {
+		if (name == null) {
+			if (problem == null) {
+				throw new IllegalStateException("Checkpoint " + file + " cannot identify a problem with parts that have no key;"
+						+ " give the checkpoint a name for the problem");
+			}
+			return problem;
+		}
+		return problem("name", name, problem == null ? "unkeyed" : problem);
+	}
+
+	public void close() {
+		writer.shutdown();
+	}
+
+	private void write(State state) {
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+			DataOutputStream data = new DataOutputStream(out);
+			data.writeInt(MAGIC);
+			writeVarInt(data, VERSION);
+			writeString(data, state.engine);
+			writeString(data, identify(state.problem));
+			writeVarInt(data, state.counters.length);
+			for (long c : state.counters) {
+				writeVarLong(data, c);
+			}
+			writePairs(data, state.frontier);
+			writePairs(data, state.answers);
+			writePairs(data, state.candidates);
+			writePair(data, state.incumbent);
+			writeVariable(data, state.bound);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		try {
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static State read(DataInputStream data) throws IOException {
+		if (data.readInt() != MAGIC) {
+			throw new IOException("Not a checkpoint file");
+		}
+		int version = readVarInt(data);
+		if (version != VERSION) {
+			throw new IOException("Unsupported checkpoint version " + version);
+		}
+		State state = new State(readString(data), readString(data));
+		state.counters = new long[readLength(data)];
+		for (int i = 0; i < state.counters.length; i++) {
+			state.counters[i] = readVarLong(data);
+		}
+		state.frontier = readPairs(data);
+		state.answers = readPairs(data);
+		state.candidates = readPairs(data);
+		state.incumbent = readPair(data);
+		state.bound = readVariable(data);
+		return state;
+	}
+
+	// Encoding
+
+	static void writeVarLong(DataOutputStream out, long n) throws IOException {
+		long z = (n << 1) ^ (n >> 63);
+		while ((z & ~0x7FL) != 0) {
+			out.writeByte((int) ((z & 0x7F) | 0x80));
+			z >>>= 7;
+		}
+		out.writeByte((int) z);
+	}
+
+	static long readVarLong(DataInputStream in) throws IOException {
+		long z = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = in.readUnsignedByte();
+			z |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return (z >>> 1) ^ -(z & 1);
+	}
+
+	static void writeVarInt(DataOutputStream out, int n) throws IOException {
+		writeVarLong(out, n);
+	}
+
+	static int readVarInt(DataInputStream in) throws IOException {
+		return (int) readVarLong(in);
+	}
+
+	// A length, which a damaged file could make negative
+	static int readLength(DataInputStream in) throws IOException {
+		int n = readVarInt(in);
+		if (n < 0) {
+			throw new IOException("Damaged checkpoint file: length " + n);
+		}
+		return n;
+	}
+
+	static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(out, bytes.length);
+		out.write(bytes);
+	}
+
+	static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[readLength(in)];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	static void writeBigInteger(DataOutputStream out, BigInteger n) throws IOException {
+		byte[] bytes = n.toByteArray();
+		writeVarInt(out, bytes.length);
+		out.write(bytes);
+	}
+
+	static BigInteger readBigInteger(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[readLength(in)];
+		in.readFully(bytes);
+		return new BigInteger(bytes);
+	}
+
+	static void writeSpecific(DataOutputStream out, SpecificIntervalCode s) throws IOException {
+		out.writeBoolean(s != null);
+		if (s != null) {
+			writeBigInteger(out, s.getCode());
+			writeVarInt(out, s.getPrec());
+		}
+	}
+
+	static SpecificIntervalCode readSpecific(DataInputStream in) throws IOException {
+		if (!in.readBoolean()) {
+			return null;
+		}
+		BigInteger code = readBigInteger(in);
+		return new SpecificIntervalCode(code, readVarInt(in));
+	}
+
+	static void writeVariable(DataOutputStream out, VariableIntervalCode v) throws IOException {
+		out.writeBoolean(v != null);
+		if (v != null) {
+			writeBigInteger(out, v.getLeftCode());
+			writeBigInteger(out, v.getRightCode());
+			writeVarInt(out, v.getPrec());
+		}
+	}
+
+	static VariableIntervalCode readVariable(DataInputStream in) throws IOException {
+		if (!in.readBoolean()) {
+			return null;
+		}
+		BigInteger left = readBigInteger(in);
+		BigInteger right = readBigInteger(in);
+		return new VariableIntervalCode(left, right, readVarInt(in));
+	}
+
+	private static void writePair(DataOutputStream out, Pair<SpecificIntervalCode,VariableIntervalCode> p) throws IOException {
+		writeSpecific(out, p.getFst());
+		writeVariable(out, p.getSnd());
+	}
+
+	private static Pair<SpecificIntervalCode,VariableIntervalCode> readPair(DataInputStream in) throws IOException {
+		SpecificIntervalCode s = readSpecific(in);
+		return new Pair<>(s, readVariable(in));
+	}
+
+	static void writePairs(DataOutputStream out, List<Pair<SpecificIntervalCode,VariableIntervalCode>> ps) throws IOException {
+		writeVarInt(out, ps.size());
+		for (Pair<SpecificIntervalCode,VariableIntervalCode> p : ps) {
+			writePair(out, p);
+		}
+	}
+
+	static List<Pair<SpecificIntervalCode,VariableIntervalCode>> readPairs(DataInputStream in) throws IOException {
+		int n = readLength(in);
+		List<Pair<SpecificIntervalCode,VariableIntervalCode>> ps = new ArrayList<>(Math.min(n, 1024));
+		for (int i = 0; i < n; i++) {
+			ps.add(readPair(in));
+		}
+		return ps;
+	}
+
+}
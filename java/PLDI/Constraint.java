@@ -0,0 +1,74 @@
+package PLDI;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * A constraint lower <= g(x) <= upper on the inputs of a minimisation, where
+ * either bound may be missing. Evaluating g on a box classifies the box as
+ * feasible (every point satisfies the constraint), infeasible (no point
+ * does) or undecided.
+ */
+public class Constraint {
+
+	public enum Feasibility { FEASIBLE, INFEASIBLE, UNDECIDED }
+
+	private FunctionCode g;
+	private DyadicCode lower;
+	private DyadicCode upper;
+
+	// Constructors
+
+	public Constraint(FunctionCode g, DyadicCode lower, DyadicCode upper) {
+		this.g = g;
+		this.lower = lower;
+		this.upper = upper;
+	}
+
+	// g(x) >= b
+	public static Constraint geq(FunctionCode g, DyadicCode b) {
+		return new Constraint(g, b, null);
+	}
+
+	// g(x) <= b
+	public static Constraint leq(FunctionCode g, DyadicCode b) {
+		return new Constraint(g, null, b);
+	}
+
+	// Getters
+
+	public FunctionCode getFunction() {
+		return g;
+	}
+
+	public DyadicCode getLower() {
+		return lower;
+	}
+
+	public DyadicCode getUpper() {
+		return upper;
+	}
+
+	// Classification
+
+	public Feasibility classify(VariableIntervalCode gx) {
+		DyadicCode l = gx.getLeftEndpoint();
+		DyadicCode r = gx.getRightEndpoint();
+		if ((lower != null && r.compare(lower) < 0) || (upper != null && l.compare(upper) > 0)) {
+			return Feasibility.INFEASIBLE;
+		}
+		if ((lower == null || l.compare(lower) >= 0) && (upper == null || r.compare(upper) <= 0)) {
+			return Feasibility.FEASIBLE;
+		}
+		return Feasibility.UNDECIDED;
+	}
+
+	public Feasibility classify(List<VariableIntervalCode> box) {
+		return classify(g.enclose(box));
+	}
+
+	public Feasibility classify(SpecificIntervalCode box) {
+		return classify(Arrays.asList(box.getVariableIntervalCode()));
+	}
+
+}
@@ -0,0 +1,110 @@
+package PLDI;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/*
+ * Bounds the partial derivatives of a function on a box, for its uniform
+ * continuity oracle: if |dF/dx_i| <= u_i on the box then F varies by at most
+ * the sum of u_i w_i on any part of it of width w_i in each argument i.
+ *
+ * The jet of F on the whole box bounds each partial derivative, but interval
+ * arithmetic overestimates it on a wide box. So each bound is tightened by
+ * branch and bound: the part of the box with the largest bound is bisected
+ * (along its widest argument) until that bound has the same exponent (see
+ * exponent) as the largest derivative found at the midpoint of some part,
+ * which is a lower bound of the true maximum. No tighter bound could then
+ * give a smaller exponent. Parts whose bound is already below that are never
+ * split.
+ */
+public class ContinuityModulus {
+
+	private static final int GUARD = 16; // Extra precision-levels for the box, so that constants are not approximated too coarsely
+	private static final int MAX_PIECES = 256; // Bisections of the box for each argument before settling for the bound found
+
+	/*
+	 * For each argument i, the bound u_i found with |dF/dx_i| <= u_i on the
+	 * box, or null if dF/dx_i is 0 on the box. F must have jets.
+	 */
+	public static List<DyadicCode> slopes(FunctionCode f, List<SpecificIntervalCode> box) {
+		List<VariableIntervalCode> xs = box.stream().map(ki -> ki.getVariableIntervalCode().down(GUARD)).toList();
+		List<DyadicCode> us = new ArrayList<>();
+		for (int i = 0; i < f.getArity(); i++) {
+			us.add(slope(f, xs, i));
+		}
+		return us;
+	}
+
+	// The least k with u <= 2^k, for u > 0, or Integer.MIN_VALUE for u = 0
+	public static int exponent(DyadicCode u) {
+		if (u.getNum().signum() == 0) {
+			return Integer.MIN_VALUE;
+		}
+		return u.getNum().subtract(BigInteger.ONE).bitLength() - u.getDen();
+	}
+
+	private static DyadicCode slope(FunctionCode f, List<VariableIntervalCode> xs, int i) {
+		PriorityQueue<Pair<List<VariableIntervalCode>,DyadicCode>> pieces =
+				new PriorityQueue<>((a, b) -> b.getSnd().compare(a.getSnd()));
+		pieces.add(new Pair<>(xs, upper(f, xs, i)));
+		DyadicCode lower = lower(f, xs, i);
+		int split = 0;
+		while (true) {
+			Cancellation.check();
+			Pair<List<VariableIntervalCode>,DyadicCode> top = pieces.poll();
+			DyadicCode u = top.getSnd();
+			if (u.getNum().signum() == 0) {
+				return null;
+			}
+			if (exponent(u) <= exponent(lower) || split >= MAX_PIECES) {
+				return u;
+			}
+			split++;
+			for (List<VariableIntervalCode> child : bisect(top.getFst())) {
+				pieces.add(new Pair<>(child, upper(f, child, i)));
+				lower = lower.max(lower(f, child, i));
+			}
+		}
+	}
+
+	// An upper bound of |dF/dx_i| on the box
+	private static DyadicCode upper(FunctionCode f, List<VariableIntervalCode> xs, int i) {
+		VariableIntervalCode d = f.encloseJet(xs).getPartial(i);
+		return new DyadicCode(d.getLeftCode().abs().max(d.getRightCode().abs()), d.getPrec());
+	}
+
+	// |dF/dx_i| at (about) the midpoint of the box, from below
+	private static DyadicCode lower(FunctionCode f, List<VariableIntervalCode> xs, int i) {
+		List<VariableIntervalCode> ms = xs.stream().map(x -> {
+			DyadicCode m = x.getMidpoint();
+			return new VariableIntervalCode(m.getNum(), m.getNum(), m.getDen());
+		}).toList();
+		VariableIntervalCode d = f.encloseJet(ms).getPartial(i);
+		if (d.getLeftCode().signum() <= 0 && d.getRightCode().signum() >= 0) {
+			return new DyadicCode(0);
+		}
+		return new DyadicCode(d.getLeftCode().abs().min(d.getRightCode().abs()), d.getPrec());
+	}
+
+	// The two halves of the box, split along its widest argument
+	private static List<List<VariableIntervalCode>> bisect(List<VariableIntervalCode> xs) {
+		int widest = 0;
+		DyadicCode width = null;
+		for (int j = 0; j < xs.size(); j++) {
+			DyadicCode w = xs.get(j).getRightEndpoint().subtract(xs.get(j).getLeftEndpoint());
+			if (width == null || w.compare(width) > 0) {
+				widest = j;
+				width = w;
+			}
+		}
+		List<VariableIntervalCode> left = new ArrayList<>(xs);
+		List<VariableIntervalCode> right = new ArrayList<>(xs);
+		left.set(widest, xs.get(widest).downLeft());
+		right.set(widest, xs.get(widest).downRight());
+		return Arrays.asList(left, right);
+	}
+
+}
@@ -0,0 +1,515 @@
+package PLDI;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Minimisation shared between several local JVM processes.
+ *
+ * The coordinator splits the compact interval into a pool of boxes and
+ * starts the workers as child processes, which connect back to it over a
+ * loopback socket. Boxes and their images are sent as codes, in the encoding
+ * of Checkpoint. Each worker runs the branch and bound of
+ * Searchers.minimiseAll, depth first, on the boxes it is given, and reports
+ * its answers and every improvement of the upper bound on the minimum. The
+ * coordinator passes the improvements on to the other workers, so that every
+ * worker prunes with the best bound found by any of them. When a worker runs
+ * out of boxes it tells the coordinator, which hands it boxes from the pool
+ * or, once the pool is empty, steals half of the frontier of a busy worker
+ * (its coarsest boxes, i.e. the largest subtrees) for it.
+ *
+ * The boxes are split by the binary subdivision, whose children are
+ * disjoint, so the subtrees held by different workers never overlap and no
+ * history has to be shared.
+ *
+ * Functions are closures, so they cannot be sent to another process.
+ * Instead the function is named by a public static field or no-argument
+ * method, e.g. "PLDI.Examples.poly3", and every process resolves the name
+ * itself.
+ */
+public class DistributedMinimisation {
+
+	// Messages from the coordinator
+	private static final int JOB = 0; // The function, delta, epsilon and upper bound
+	private static final int WORK = 1; // Boxes for the frontier
+	private static final int STEAL = 2; // A request for half of the frontier
+	private static final int STOP = 3;
+	// Messages from a worker
+	private static final int GIVE = 4; // The boxes given up for a steal, perhaps none
+	private static final int ANSWERS = 5; // Boxes on which the search has finished
+	private static final int IDLE = 6; // The frontier is empty, after the given number of WORK messages
+	// Messages either way
+	private static final int BOUND = 7; // An improved upper bound on the minimum
+	private static final int CLOSED = 8; // The connection was closed (never sent)
+
+	private static final int POOL = 4; // Boxes in the initial pool for each worker
+	private static final long WAIT = 10; // Milliseconds before asking again workers which had nothing to give
+	private static final int CONNECT_TIMEOUT = 30000; // Milliseconds for the workers to connect
+
+	// Coordinator
+
+	public static TernaryBoehmReal minimise(String function, SpecificIntervalCode compact, int epsilon, int workers) {
+		MinimisationResult result = minimiseAll(function, compact, epsilon, workers);
+		if (!result.isEmpty()) {
+			return new TernaryBoehmReal(result.getBoxes().get(0).getFst());
+		}
+		return new TernaryBoehmReal(666);
+	}
+
+	/*
+	 * As Searchers.minimiseAll, with the search shared between the given
+	 * number of worker processes.
+	 */
+	public static MinimisationResult minimiseAll(String function, SpecificIntervalCode compact, int epsilon, int workers) {
+		FunctionCode F = resolve(function);
+		int delta = F.getUniformContinuityOracle(compact).apply(epsilon).get(0);
+		VariableIntervalCode fcompact = F.enclose(Arrays.asList(compact.getVariableIntervalCode()));
+		if (compact.getPrec() >= delta || fcompact.joinPrec() >= epsilon) {
+			return MinimisationResult.of(Arrays.asList(new Pair<>(compact,fcompact)));
+		}
+		Subtree pool = new Subtree(F, delta, epsilon, Searchers.sampleUpperBound(F, compact, Searchers.SAMPLES, true));
+		pool.frontier.add(new Pair<>(compact,fcompact));
+		// Breadth first, so that the pool holds boxes of about the same size
+		while (!pool.frontier.isEmpty() && pool.frontier.size() < POOL * workers) {
+			Cancellation.check();
+			pool.split(pool.frontier.pollFirst());
+		}
+		List<Process> processes = new ArrayList<>();
+		try (ServerSocket server = new ServerSocket(0, workers, InetAddress.getLoopbackAddress())) {
+			server.setSoTimeout(CONNECT_TIMEOUT);
+			String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+			for (int i = 0; i < workers && !pool.frontier.isEmpty(); i++) {
+				processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+						DistributedMinimisation.class.getName(), Integer.toString(server.getLocalPort())).inheritIO().start());
+			}
+			BlockingQueue<Message> events = new LinkedBlockingQueue<>();
+			List<Peer> peers = new ArrayList<>();
+			for (int i = 0; i < processes.size(); i++) {
+				Peer peer = new Peer(server.accept());
+				peers.add(peer);
+				listen(peer.in, peer, events);
+				peer.send(Message.job(function, delta, epsilon, pool.bound));
+			}
+			coordinate(pool, peers, events);
+			for (Peer peer : peers) {
+				peer.send(Message.of(STOP));
+			}
+			for (Process process : processes) {
+				process.waitFor(CONNECT_TIMEOUT, TimeUnit.MILLISECONDS);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SearchCancelledException("Interrupted");
+		} finally {
+			for (Process process : processes) {
+				process.destroy();
+			}
+		}
+		return MinimisationResult.of(pool.answers, pool.bound.getRightEndpoint());
+	}
+
+	/*
+	 * Hands out the pool and passes on bounds, answers and stolen boxes until
+	 * the pool is empty and every worker is idle.
+	 */
+	private static void coordinate(Subtree pool, List<Peer> peers, BlockingQueue<Message> events) throws IOException, InterruptedException {
+		while (true) {
+			Cancellation.check();
+			balance(pool, peers);
+			if (pool.frontier.isEmpty() && peers.stream().allMatch(p -> p.isIdle() && !p.stealing)) {
+				return;
+			}
+			Message m = events.poll(WAIT, TimeUnit.MILLISECONDS);
+			if (m == null) {
+				for (Peer peer : peers) {
+					peer.dry = false;
+				}
+				continue;
+			}
+			Peer from = m.from;
+			switch (m.type) {
+			case BOUND:
+				if (pool.lower(m.bound)) {
+					for (Peer peer : peers) {
+						if (peer != from) {
+							peer.send(Message.bound(pool.bound));
+						}
+					}
+				}
+				break;
+			case ANSWERS:
+				pool.answers.addAll(m.boxes);
+				break;
+			case GIVE:
+				from.stealing = false;
+				from.dry = m.boxes.isEmpty();
+				pool.frontier.addAll(m.boxes);
+				break;
+			case IDLE:
+				from.seen = m.count;
+				break;
+			case CLOSED:
+				throw new IllegalStateException("A worker stopped before the search finished");
+			}
+		}
+	}
+
+	/*
+	 * Shares the pool out between the idle workers or, if it is empty, asks
+	 * as many busy workers as there are idle ones to give up part of their
+	 * frontiers.
+	 */
+	private static void balance(Subtree pool, List<Peer> peers) throws IOException {
+		List<Peer> idle = peers.stream().filter(Peer::isIdle).toList();
+		if (idle.isEmpty()) {
+			return;
+		}
+		if (!pool.frontier.isEmpty()) {
+			for (int i = 0; i < idle.size() && !pool.frontier.isEmpty(); i++) {
+				int n = (pool.frontier.size() + idle.size() - i - 1) / (idle.size() - i);
+				List<Pair<SpecificIntervalCode,VariableIntervalCode>> boxes = new ArrayList<>(n);
+				for (int j = 0; j < n; j++) {
+					boxes.add(pool.frontier.pollFirst());
+				}
+				idle.get(i).send(Message.boxes(WORK, boxes));
+			}
+			return;
+		}
+		long stealing = peers.stream().filter(p -> p.stealing).count();
+		for (Peer peer : peers) {
+			if (stealing >= idle.size()) {
+				break;
+			}
+			if (!peer.isIdle() && !peer.stealing && !peer.dry) {
+				peer.send(Message.of(STEAL));
+				peer.stealing = true;
+				stealing++;
+			}
+		}
+	}
+
+	// A worker, as seen by the coordinator
+	private static class Peer {
+		private Socket socket;
+		private DataInputStream in;
+		private DataOutputStream out;
+		private int sent = 0; // WORK messages sent
+		private int seen = 0; // WORK messages seen by the worker when it was last idle
+		private boolean stealing = false; // Asked to give up boxes, with no answer yet
+		private boolean dry = false; // Had nothing to give when last asked
+
+		Peer(Socket socket) throws IOException {
+			this.socket = socket;
+			this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		}
+
+		// True if the worker has nothing to do, until more work is sent to it
+		boolean isIdle() {
+			return seen == sent;
+		}
+
+		void send(Message m) throws IOException {
+			if (m.type == WORK) {
+				sent++;
+			}
+			m.write(out);
+		}
+	}
+
+	// Worker
+
+	/*
+	 * Runs a worker for the coordinator listening on the given loopback port.
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(args[0]))) {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			BlockingQueue<Message> inbox = new LinkedBlockingQueue<>();
+			listen(in, null, inbox);
+			work(inbox, out);
+		}
+	}
+
+	/*
+	 * Splits the finest box of the frontier at each step, handling the
+	 * messages of the coordinator in between.
+	 */
+	private static void work(BlockingQueue<Message> inbox, DataOutputStream out) throws IOException, InterruptedException {
+		Subtree tree = null;
+		int works = 0;
+		int reported = 0;
+		while (true) {
+			// Report before blocking, so that the coordinator learns that the frontier is empty
+			if (tree != null && tree.frontier.isEmpty() && reported != works) {
+				Message.boxes(ANSWERS, tree.takeAnswers()).write(out);
+				Message.idle(works).write(out);
+				reported = works;
+			}
+			Message m = tree == null || tree.frontier.isEmpty() ? inbox.take() : inbox.poll();
+			for (; m != null; m = inbox.poll()) {
+				switch (m.type) {
+				case JOB:
+					tree = new Subtree(resolve(m.function), m.delta, m.epsilon, m.bound);
+					break;
+				case WORK:
+					works++;
+					tree.frontier.addAll(m.boxes);
+					break;
+				case BOUND:
+					tree.lower(m.bound);
+					break;
+				case STEAL:
+					Message.boxes(GIVE, tree.give()).write(out);
+					break;
+				case STOP:
+				case CLOSED:
+					return;
+				}
+			}
+			if (!tree.frontier.isEmpty()) {
+				if (tree.split(tree.frontier.pollLast())) {
+					Message.bound(tree.bound).write(out);
+				}
+			}
+		}
+	}
+
+	/*
+	 * The part of the subdivision tree held by one process: the boxes still
+	 * to be split, the answers found, and the least upper bound on the
+	 * minimum that the process knows of.
+	 */
+	static class Subtree {
+		private FunctionCode F;
+		private int delta;
+		private int epsilon;
+		VariableIntervalCode bound;
+		ArrayDeque<Pair<SpecificIntervalCode,VariableIntervalCode>> frontier = new ArrayDeque<>();
+		List<Pair<SpecificIntervalCode,VariableIntervalCode>> answers = new ArrayList<>();
+
+		Subtree(FunctionCode F, int delta, int epsilon, VariableIntervalCode bound) {
+			this.F = F;
+			this.delta = delta;
+			this.epsilon = epsilon;
+			this.bound = bound;
+		}
+
+		// Lowers the bound to u if u is below it, returning true if it did
+		boolean lower(VariableIntervalCode u) {
+			if (Searchers.eclipses(u, bound)) {
+				bound = u;
+				return true;
+			}
+			return false;
+		}
+
+		/*
+		 * Splits the box, unless it is pruned by the bound, lowering the bound
+		 * to the least right endpoint of the images of its children. Returns
+		 * true if the bound was lowered.
+		 */
+		boolean split(Pair<SpecificIntervalCode,VariableIntervalCode> box) {
+			if (Searchers.eclipses(bound, box.getSnd())) {
+				return false;
+			}
+			boolean lowered = false;
+			List<Pair<SpecificIntervalCode,VariableIntervalCode>> children = new ArrayList<>();
+			for (SpecificIntervalCode child : Subdivision.binary().children(box.getFst(), delta)) {
+				VariableIntervalCode fchild = F.enclose(Arrays.asList(child.getVariableIntervalCode()));
+				children.add(new Pair<>(child,fchild));
+				lowered |= lower(new VariableIntervalCode(fchild.getRightCode(), fchild.getRightCode(), fchild.getPrec()));
+			}
+			for (Pair<SpecificIntervalCode,VariableIntervalCode> child : children) {
+				if (Searchers.eclipses(bound, child.getSnd())) {
+					continue;
+				}
+				if (child.getFst().getPrec() >= delta || child.getSnd().joinPrec() >= epsilon) {
+					answers.add(child);
+				} else {
+					frontier.addLast(child);
+				}
+			}
+			return lowered;
+		}
+
+		// Half of the frontier, coarsest boxes first
+		List<Pair<SpecificIntervalCode,VariableIntervalCode>> give() {
+			List<Pair<SpecificIntervalCode,VariableIntervalCode>> boxes = new ArrayList<>();
+			for (int n = frontier.size() / 2; n > 0; n--) {
+				boxes.add(frontier.pollFirst());
+			}
+			return boxes;
+		}
+
+		// The answers found since the last call that are not pruned by the bound
+		List<Pair<SpecificIntervalCode,VariableIntervalCode>> takeAnswers() {
+			List<Pair<SpecificIntervalCode,VariableIntervalCode>> boxes = new ArrayList<>();
+			for (Pair<SpecificIntervalCode,VariableIntervalCode> answer : answers) {
+				if (!Searchers.eclipses(bound, answer.getSnd())) {
+					boxes.add(answer);
+				}
+			}
+			answers.clear();
+			return boxes;
+		}
+	}
+
+	// Messages
+
+	private static class Message {
+		private int type;
+		private Peer from; // The worker it came from, on the coordinator
+		private String function;
+		private int delta;
+		private int epsilon;
+		private int count;
+		private VariableIntervalCode bound;
+		private List<Pair<SpecificIntervalCode,VariableIntervalCode>> boxes;
+
+		private Message(int type) {
+			this.type = type;
+		}
+
+		static Message of(int type) {
+			return new Message(type);
+		}
+
+		static Message job(String function, int delta, int epsilon, VariableIntervalCode bound) {
+			Message m = new Message(JOB);
+			m.function = function;
+			m.delta = delta;
+			m.epsilon = epsilon;
+			m.bound = bound;
+			return m;
+		}
+
+		static Message boxes(int type, List<Pair<SpecificIntervalCode,VariableIntervalCode>> boxes) {
+			Message m = new Message(type);
+			m.boxes = boxes;
+			return m;
+		}
+
+		static Message bound(VariableIntervalCode bound) {
+			Message m = new Message(BOUND);
+			m.bound = bound;
+			return m;
+		}
+
+		static Message idle(int count) {
+			Message m = new Message(IDLE);
+			m.count = count;
+			return m;
+		}
+
+		void write(DataOutputStream out) throws IOException {
+			out.writeByte(type);
+			switch (type) {
+			case JOB:
+				out.writeUTF(function);
+				Checkpoint.writeVarInt(out, delta);
+				Checkpoint.writeVarInt(out, epsilon);
+				Checkpoint.writeVariable(out, bound);
+				break;
+			case WORK:
+			case GIVE:
+			case ANSWERS:
+				Checkpoint.writePairs(out, boxes);
+				break;
+			case IDLE:
+				Checkpoint.writeVarInt(out, count);
+				break;
+			case BOUND:
+				Checkpoint.writeVariable(out, bound);
+				break;
+			}
+			out.flush();
+		}
+
+		static Message read(DataInputStream in) throws IOException {
+			Message m = new Message(in.readUnsignedByte());
+			switch (m.type) {
+			case JOB:
+				m.function = in.readUTF();
+				m.delta = Checkpoint.readVarInt(in);
+				m.epsilon = Checkpoint.readVarInt(in);
+				m.bound = Checkpoint.readVariable(in);
+				break;
+			case WORK:
+			case GIVE:
+			case ANSWERS:
+				m.boxes = Checkpoint.readPairs(in);
+				break;
+			case IDLE:
+				m.count = Checkpoint.readVarInt(in);
+				break;
+			case BOUND:
+				m.bound = Checkpoint.readVariable(in);
+				break;
+			}
+			return m;
+		}
+	}
+
+	// Reads messages into the queue on a daemon thread, ending with CLOSED
+	private static void listen(DataInputStream in, Peer from, BlockingQueue<Message> queue) {
+		Thread reader = new Thread(() -> {
+			try {
+				while (true) {
+					Message m = Message.read(in);
+					m.from = from;
+					queue.add(m);
+					if (m.type == STOP) {
+						return;
+					}
+				}
+			} catch (IOException e) {
+				Message m = Message.of(CLOSED);
+				m.from = from;
+				queue.add(m);
+			}
+		});
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	// Functions
+
+	/*
+	 * The function named by a public static field or no-argument method,
+	 * given as the class name followed by the member name.
+	 */
+	static FunctionCode resolve(String function) {
+		int dot = function.lastIndexOf('.');
+		try {
+			Class<?> c = Class.forName(function.substring(0, dot));
+			String name = function.substring(dot + 1);
+			try {
+				return (FunctionCode) c.getField(name).get(null);
+			} catch (NoSuchFieldException e) {
+				return (FunctionCode) c.getMethod(name).invoke(null);
+			}
+		} catch (ReflectiveOperationException | ClassCastException | StringIndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Not a function: " + function, e);
+		}
+	}
+
+}
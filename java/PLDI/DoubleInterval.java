@@ -0,0 +1,137 @@
+package PLDI;
+
+import java.math.BigInteger;
+
+/*
+ * An interval [lo,hi] of doubles whose operations round outward, so that it
+ * always encloses the exact result of the same operations on the reals.
+ *
+ * Every rounded endpoint is moved one step outward with Math.nextDown and
+ * Math.nextUp, which covers the rounding error of a single operation. An
+ * operation whose result is undefined (e.g. 0 * infinity) gives the entire
+ * real line. These intervals are only used to rule boxes out cheaply, so the
+ * exact interval codes decide whenever they cannot.
+ */
+public class DoubleInterval {
+
+	public static final DoubleInterval ENTIRE = new DoubleInterval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+	private final double lo;
+	private final double hi;
+
+	// Constructors
+
+	public DoubleInterval(double lo, double hi) {
+		if (Double.isNaN(lo) || Double.isNaN(hi)) {
+			this.lo = Double.NEGATIVE_INFINITY;
+			this.hi = Double.POSITIVE_INFINITY;
+		} else {
+			this.lo = lo;
+			this.hi = hi;
+		}
+	}
+
+	// An enclosure of [l/2^p, r/2^p]
+	public static DoubleInterval of(VariableIntervalCode x) {
+		return new DoubleInterval(Math.nextDown(toDouble(x.getLeftEndpoint(), false)), Math.nextUp(toDouble(x.getRightEndpoint(), true)));
+	}
+
+	// An enclosure of y, from its approximation on the given precision-level
+	public static DoubleInterval of(TernaryBoehmReal y, int prec) {
+		return of(y.approxAsSpecificIntervalCode(prec).getVariableIntervalCode());
+	}
+
+	/*
+	 * A double less than an ulp from a dyadic below x (or above x, if up), so
+	 * that one step of Math.nextDown (or Math.nextUp) passes x. The numerator
+	 * is first cut down to 62 bits, rounding in that direction, and the bits
+	 * cut off go into the exponent, so that a long numerator with a large
+	 * precision-level does not overflow to an infinity. The conversion of the
+	 * 62 bits and the scaling each round to nearest, and the scaling only
+	 * loses bits when the result is subnormal. A result too large for a
+	 * double becomes an infinity of the same sign, which still encloses x
+	 * after the step.
+	 */
+	private static double toDouble(DyadicCode x, boolean up) {
+		BigInteger num = x.getNum();
+		int shift = Math.max(0, num.bitLength() - 62);
+		BigInteger n = num.shiftRight(shift);
+		if (up && n.shiftLeft(shift).compareTo(num) != 0) {
+			n = n.add(BigInteger.ONE);
+		}
+		return Math.scalb((double) n.longValue(), shift - x.getDen());
+	}
+
+	// The finite double d as a dyadic, exactly: d 2^{52-e} is an integer for the exponent e of d
+	public static DyadicCode toDyadic(double d) {
+		if (d == 0) {
+			return new DyadicCode(0);
+		}
+		int shift = 52 - Math.getExponent(d);
+		if (shift < 0) {
+			return new DyadicCode(BigInteger.valueOf((long) Math.scalb(d, shift)).shiftLeft(-shift), 0);
+		}
+		return new DyadicCode(BigInteger.valueOf((long) Math.scalb(d, shift)), shift);
+	}
+
+	// Getters
+
+	public double getLo() {
+		return lo;
+	}
+
+	public double getHi() {
+		return hi;
+	}
+
+	// True if this interval lies strictly below y
+	public boolean eclipses(DoubleInterval y) {
+		return hi < y.lo;
+	}
+
+	// Operations
+
+	public DoubleInterval negate() {
+		return new DoubleInterval(-hi, -lo);
+	}
+
+	public DoubleInterval abs() {
+		if (lo >= 0) {
+			return this;
+		} else if (hi <= 0) {
+			return negate();
+		} else {
+			return new DoubleInterval(0, Math.max(-lo, hi));
+		}
+	}
+
+	public DoubleInterval add(DoubleInterval y) {
+		return new DoubleInterval(Math.nextDown(lo + y.lo), Math.nextUp(hi + y.hi));
+	}
+
+	public DoubleInterval multiply(DoubleInterval y) {
+		double a = lo * y.lo;
+		double b = lo * y.hi;
+		double c = hi * y.lo;
+		double d = hi * y.hi;
+		if (Double.isNaN(a) || Double.isNaN(b) || Double.isNaN(c) || Double.isNaN(d)) {
+			return ENTIRE;
+		}
+		return new DoubleInterval(Math.nextDown(Math.min(Math.min(a, b), Math.min(c, d))),
+				Math.nextUp(Math.max(Math.max(a, b), Math.max(c, d))));
+	}
+
+	public DoubleInterval inverse() {
+		if (lo > 0 || hi < 0) {
+			return new DoubleInterval(Math.nextDown(1 / hi), Math.nextUp(1 / lo));
+		}
+		return ENTIRE;
+	}
+
+	// Printers
+
+	public String toString() {
+		return "[" + lo + "," + hi + "]";
+	}
+
+}
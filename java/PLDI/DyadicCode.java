@@ -64,19 +64,16 @@ public class DyadicCode {
 		}
 	}
 	
+	// floor(num/2), as upRight(1), so that negative codes also move to the interval above them
 	public DyadicCode upRight() {
-		if (isIntermediary() && isNegative()) {
-			return new DyadicCode(num.divide(BigInteger.TWO).subtract(BigInteger.ONE), den - 1);
-		} else {
-			return new DyadicCode(num.divide(BigInteger.TWO), den - 1);
-		}
+		return new DyadicCode(num.shiftRight(1), den - 1);
 	}
 	
 	public DyadicCode upRight(int n) {
 		if (n <= 0) {
 			return this;
 		} else {
-			return upRight().upRight(n-1);
+			return new DyadicCode(num.shiftRight(n), den - n);
 		}
 	}
 	
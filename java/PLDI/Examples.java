@@ -64,6 +64,12 @@ public class Examples {
 				);
 	}
 	
+	// Find x in compact such that f(x) = y, pruning the intervals on which f cannot be y
+	public static TernaryBoehmReal solve_equation_interval(FunctionCode f, TernaryBoehmReal y, SpecificIntervalCode compact, int prec) {
+		assert(f.getArity() == 1);
+		return Searchers.exhaustive_search_interval(Searchers.searchPFinCompact(PredicateCode.eq(y, prec), f, compact), compact);
+	}
+	
 	// Find x in [-1,1] such that x * 0.5 = 0.5 to prec-level 20 (and on 3N)
 	public static TernaryBoehmReal equation_ex1() {
 		return solve_equation_naive(FunctionCode.constantMul(half), half, minusOneToOne, 20);
@@ -79,6 +85,36 @@ public class Examples {
 		return solve_equation_semidecidable(FunctionCode.constantMul(half), half, minusOneToOne, 500);
 	}
 	
+	// Find x in [-1,1] such that x * 0.5 = 0.5 to prec-level 500, by branch and bound on intervals
+	public static TernaryBoehmReal equation_ex6() {
+		return solve_equation_interval(FunctionCode.constantMul(half), half, minusOneToOne, 500);
+	}
+	
+	// Find x in [0,2] such that x * 0.5 = 0.5 by interval Newton iterations, to prec-level 1000
+	// (a root on the edge of the compact interval cannot be certified to lie in it)
+	public static TernaryBoehmReal equation_ex5() {
+		TernaryBoehmReal x = NewtonSolver.solve(FunctionCode.constantMul(half), half, new SpecificIntervalCode(BigInteger.ZERO, 0));
+		x.approx(1000);
+		return x;
+	}
+	
+	// Find x in [-1,1] such that 1/x = 3 by interval Newton iterations, to prec-level 1000
+	// (the compact interval contains the pole of 1/x at 0)
+	public static TernaryBoehmReal equation_ex7() {
+		TernaryBoehmReal x = NewtonSolver.solve(FunctionCode.inverse(), new TernaryBoehmReal(3), minusOneToOne);
+		x.approx(1000);
+		return x;
+	}
+	
+	// Find x in [-1,1] such that 8x^10 - 6x^3 - 4x^2 = 0, by isolating the roots of the polynomial
+	public static TernaryBoehmReal equation_ex4() {
+		return PolynomialRoots.roots(Arrays.asList(
+					new Pair<>(new DyadicCode(8),10),
+					new Pair<>(new DyadicCode(-6),3),
+					new Pair<>(new DyadicCode(-4),2)
+				), minusOneToOne).get(0);
+	}
+	
 	// Minimise x^2 in [-1,1] to prec-level 50 (and on 3N)
 	public static TernaryBoehmReal minimise_ex1() { 
 		return Searchers.minimise(FunctionCode.pow(2), minusOneToOne, 50);
@@ -145,4 +181,19 @@ public class Examples {
 		return result;
 	}
 
+	// minimise_ex6, shared between two worker processes
+	public static TernaryBoehmReal minimise_ex7() {
+		TernaryBoehmReal result = DistributedMinimisation.minimise("PLDI.Examples.poly3", minusFourToFour, 30, 2);
+		System.out.println("minimise_ex7: " + result.toDouble(15));
+		return result;
+	}
+
+	// minimise_ex6 on precision-level 20, then continued to 50 from the boxes that survived
+	public static TernaryBoehmReal minimise_ex8() {
+		MinimisationResult coarse = Searchers.minimiseAll(poly3, minusFourToFour, 20);
+		TernaryBoehmReal result = coarse.getContinuation().minimise(50);
+		System.out.println("minimise_ex8: " + result.toDouble(40));
+		return result;
+	}
+
 }
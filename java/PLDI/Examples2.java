@@ -100,6 +100,16 @@ public class Examples2 {
         search.search_verbose();
     }
 
+    /*
+     * Same as search_example, but scoring the intervals by the image of the
+     * function and refining the best ones first.
+     */
+    void search_example_differential_eq() {
+        System.out.println("Searching for x such that x^6 - x^4 + x^3 + x^2 = 2, up to precision level 6");
+        SearchHeuristic search = new SearchDifferential(poly2, pred2, minus_one_one);
+        search.search_verbose();
+    }
+
     /*
      * Minimise x^2 + 1 on [-1,1] up to precision level 12.
      * Obviously the answer is 0, with output 1.
@@ -159,4 +169,14 @@ public class Examples2 {
         heuristic.minimise_verbose();
     }
 
+    /*
+     * Same as minimise_example_guided_3, but letting a bandit choose between
+     * the heuristics as the search goes.
+     */
+    void minimise_example_bandit_3() {
+        System.out.println("Minimise x^6 + x^5 - x^4 + x^2 on [-2,2]...");
+        Optimisation2 heuristic = Optimisation2.bandit(poly3, minus_two_two , 15);
+        heuristic.minimise_verbose();
+    }
+
 }
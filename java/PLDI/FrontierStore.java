@@ -0,0 +1,195 @@
+package PLDI;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * A frontier of (interval, output) pairs stored as parallel primitive arrays
+ * rather than as Pair objects.
+ *
+ * Node i is the specific interval (code[i], prec[i]) with the output
+ * (left[i], right[i], outPrec[i]). Codes that do not fit in a long are kept
+ * in an overflow table, as {code, left, right}, and the node is marked as
+ * big. Removing a node moves the last node into its place, so the order of
+ * the nodes is not kept.
+ *
+ * The eclipse tests compare the longs directly whenever the alignment of the
+ * precision-levels cannot overflow, and only build interval codes otherwise.
+ *
+ * Since the order is not kept, this is the frontier of Searchers.minimiseAll
+ * and range, whose pruning does not depend on it. The engines of
+ * Optimisation2 choose the next interval by its position in the frontier,
+ * and expose the frontier with getFrontier, so they keep their lists.
+ */
+public class FrontierStore {
+
+	private long[] code = new long[16];
+	private int[] prec = new int[16];
+	private long[] left = new long[16];
+	private long[] right = new long[16];
+	private int[] outPrec = new int[16];
+	private boolean[] big = new boolean[16];
+	private Map<Integer,BigInteger[]> overflow = new HashMap<>();
+	private int size = 0;
+
+	// Getters
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public SpecificIntervalCode getInterval(int i) {
+		if (big[i]) {
+			return new SpecificIntervalCode(overflow.get(i)[0], prec[i]);
+		}
+		return new SpecificIntervalCode(BigInteger.valueOf(code[i]), prec[i]);
+	}
+
+	public VariableIntervalCode getOutput(int i) {
+		if (big[i]) {
+			BigInteger[] bs = overflow.get(i);
+			return new VariableIntervalCode(bs[1], bs[2], outPrec[i]);
+		}
+		return new VariableIntervalCode(BigInteger.valueOf(left[i]), BigInteger.valueOf(right[i]), outPrec[i]);
+	}
+
+	public Pair<SpecificIntervalCode,VariableIntervalCode> get(int i) {
+		return new Pair<>(getInterval(i), getOutput(i));
+	}
+
+	public List<Pair<SpecificIntervalCode,VariableIntervalCode>> toList() {
+		List<Pair<SpecificIntervalCode,VariableIntervalCode>> ps = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			ps.add(get(i));
+		}
+		return ps;
+	}
+
+	// Adding and removing
+
+	public void add(SpecificIntervalCode s, VariableIntervalCode v) {
+		if (size == code.length) {
+			int n = 2 * size;
+			code = Arrays.copyOf(code, n);
+			prec = Arrays.copyOf(prec, n);
+			left = Arrays.copyOf(left, n);
+			right = Arrays.copyOf(right, n);
+			outPrec = Arrays.copyOf(outPrec, n);
+			big = Arrays.copyOf(big, n);
+		}
+		prec[size] = s.getPrec();
+		outPrec[size] = v.getPrec();
+		if (s.getCode().bitLength() < 64 && v.getLeftCode().bitLength() < 64 && v.getRightCode().bitLength() < 64) {
+			code[size] = s.getCode().longValue();
+			left[size] = v.getLeftCode().longValue();
+			right[size] = v.getRightCode().longValue();
+			big[size] = false;
+		} else {
+			overflow.put(size, new BigInteger[] { s.getCode(), v.getLeftCode(), v.getRightCode() });
+			big[size] = true;
+		}
+		size++;
+	}
+
+	public void add(Pair<SpecificIntervalCode,VariableIntervalCode> p) {
+		add(p.getFst(), p.getSnd());
+	}
+
+	public void addAll(List<Pair<SpecificIntervalCode,VariableIntervalCode>> ps) {
+		for (Pair<SpecificIntervalCode,VariableIntervalCode> p : ps) {
+			add(p);
+		}
+	}
+
+	public void remove(int i) {
+		int last = size - 1;
+		overflow.remove(i);
+		if (i != last) {
+			code[i] = code[last];
+			prec[i] = prec[last];
+			left[i] = left[last];
+			right[i] = right[last];
+			outPrec[i] = outPrec[last];
+			big[i] = big[last];
+			if (big[last]) {
+				overflow.put(i, overflow.remove(last));
+			}
+		}
+		size--;
+	}
+
+	// Eclipses
+
+	/*
+	 * Compares a/2^{pa} with b/2^{pb}, or returns null if aligning the two
+	 * codes could overflow a long.
+	 */
+	private static Integer compare(long a, int pa, long b, int pb) {
+		if (pa < pb) {
+			Integer c = compare(b, pb, a, pa);
+			return c == null ? null : -c;
+		}
+		int d = pa - pb;
+		if (d >= 63 || b == Long.MIN_VALUE || Math.abs(b) >= (1L << (62 - d))) {
+			return null;
+		}
+		return Long.compare(a, b << d);
+	}
+
+	// True if the output of node i lies strictly below v
+	private boolean outputEclipses(int i, VariableIntervalCode v) {
+		if (!big[i] && v.getLeftCode().bitLength() < 64) {
+			Integer c = compare(right[i], outPrec[i], v.getLeftCode().longValue(), v.getPrec());
+			if (c != null) {
+				return c < 0;
+			}
+		}
+		return Searchers.eclipses(getOutput(i), v);
+	}
+
+	// True if v lies strictly below the output of node i
+	private boolean eclipsesOutput(VariableIntervalCode v, int i) {
+		if (!big[i] && v.getRightCode().bitLength() < 64) {
+			Integer c = compare(v.getRightCode().longValue(), v.getPrec(), left[i], outPrec[i]);
+			if (c != null) {
+				return c < 0;
+			}
+		}
+		return Searchers.eclipses(v, getOutput(i));
+	}
+
+	/*
+	 * Returns true if the output of some node lies strictly below v.
+	 */
+	public boolean anyEclipses(VariableIntervalCode v) {
+		for (int i = 0; i < size; i++) {
+			if (outputEclipses(i, v)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * Removes every node whose output lies strictly above v.
+	 */
+	public void removeEclipsedBy(VariableIntervalCode v) {
+		int i = 0;
+		while (i < size) {
+			if (eclipsesOutput(v, i)) {
+				remove(i);
+			} else {
+				i++;
+			}
+		}
+	}
+
+}
@@ -12,15 +12,67 @@ public class FunctionCode {
 	private int arity;
 	private Function<List<VariableIntervalCode>,VariableIntervalCode> approximator;
 	private BiFunction<List<TernaryBoehmReal>,Integer,List<Integer>> continuityOracle;
+	private Function<List<AffineForm>,AffineForm> affineApproximator;
+	private PolynomialBatch batch; // Only for unary polynomials
+	private Function<List<DoubleInterval>,DoubleInterval> doubleApproximator; // Null if there is none
+	private Function<List<Jet>,Jet> jetApproximator; // Null if there is none
+	private Object key; // Null if the function is only known by its identity
+	
+	// The precision-level on which constants are approximated for double evaluation
+	private static final int DOUBLE_PREC = 60;
 	
 	// Constructors
 	
 	private FunctionCode(int arity,
 			Function<List<VariableIntervalCode>,VariableIntervalCode> approximator,
 			BiFunction<List<TernaryBoehmReal>,Integer,List<Integer>> continuityOracle) {
+		this(arity, approximator, continuityOracle, null);
+	}
+	
+	// Without an affine approximator, affine forms are evaluated through the
+	// interval approximator, which forgets their correlations
+	private FunctionCode(int arity,
+			Function<List<VariableIntervalCode>,VariableIntervalCode> approximator,
+			BiFunction<List<TernaryBoehmReal>,Integer,List<Integer>> continuityOracle,
+			Function<List<AffineForm>,AffineForm> affineApproximator) {
 		this.arity = arity;
 		this.approximator = approximator;
-		this.continuityOracle = continuityOracle;
+		this.continuityOracle = (xs, q) -> {
+			Cancellation.check();
+			return continuityOracle.apply(xs, q);
+		};
+		if (affineApproximator == null) {
+			this.affineApproximator = as -> AffineForm.fromInterval(
+					approximator.apply(as.stream().map(a -> a.toVariableIntervalCode()).toList()), arity);
+		} else {
+			this.affineApproximator = affineApproximator;
+		}
+	}
+	
+	private FunctionCode withDouble(Function<List<DoubleInterval>,DoubleInterval> doubleApproximator) {
+		this.doubleApproximator = doubleApproximator;
+		return this;
+	}
+	
+	private FunctionCode withJet(Function<List<Jet>,Jet> jetApproximator) {
+		this.jetApproximator = jetApproximator;
+		return this;
+	}
+	
+	private FunctionCode withKey(Object... parts) {
+		this.key = Arrays.asList(parts);
+		return this;
+	}
+	
+	// The double enclosure of a constant, computed on first use
+	private static Function<List<DoubleInterval>,DoubleInterval> doubleConstant(TernaryBoehmReal y) {
+		DoubleInterval[] c = new DoubleInterval[1];
+		return xs -> {
+			if (c[0] == null) {
+				c[0] = DoubleInterval.of(y, DOUBLE_PREC);
+			}
+			return c[0];
+		};
 	}
 	
 	// Getters
@@ -29,6 +81,15 @@ public class FunctionCode {
 		return arity;
 	}
 	
+	/*
+	 * A structural identity of the function: functions built by the same
+	 * constructors from the same arguments (and constants with the same
+	 * structural identity) have equal keys. Any other function is its own key.
+	 */
+	public Object getKey() {
+		return key == null ? this : key;
+	}
+	
 	public Function<List<VariableIntervalCode>,VariableIntervalCode> getApproximator() {
 		return approximator;
 	}
@@ -38,9 +99,55 @@ public class FunctionCode {
 	}
 	
 	public Function<Integer,List<Integer>> getUniformContinuityOracle(SpecificIntervalCode ki) {
-		Function<Integer,List<Integer>> left = n -> continuityOracle.apply(Arrays.asList(new TernaryBoehmReal(ki.downLeft(n - ki.getPrec()).getLeftEndpoint())), n);
-		Function<Integer,List<Integer>> right = n -> continuityOracle.apply(Arrays.asList(new TernaryBoehmReal(ki.downRight(n - ki.getPrec()).getLeftEndpoint())), n);
-		return (n -> zipMax(Arrays.asList(left.apply(n),right.apply(n))));
+		return getUniformContinuityOracle(Arrays.asList(ki));
+	}
+	
+	/*
+	 * A uniform continuity oracle on the box with one interval per argument:
+	 * for an output precision-level q it gives, for each argument i, a
+	 * precision-level d_i such that F varies by at most 2^{1-q}, the width of
+	 * a code on q, on any part of the box of width at most 2^{1-d_i} (the
+	 * width of a code on d_i) in each argument i, as the continuity oracle
+	 * does at a point.
+	 * 
+	 * If F has jets, ContinuityModulus bounds each partial derivative on the
+	 * box once, and with |dF/dx_i| <= u_i there, d_i = q + k_i suffices for
+	 * the least k_i with arity * u_i <= 2^{k_i}, since then the sum of
+	 * u_i 2^{1-d_i} is at most 2^{1-q}. An argument that F does not depend on
+	 * on the box gets the precision-level of its interval.
+	 * Otherwise, or if a derivative is unbounded on the box (as that of an
+	 * inverse of an interval containing 0), the continuity oracle is asked
+	 * at the lowest and the highest corner of the box.
+	 */
+	public Function<Integer,List<Integer>> getUniformContinuityOracle(List<SpecificIntervalCode> box) {
+		assert(box.size() == arity);
+		List<DyadicCode> slopes = null;
+		if (hasJetApproximator()) {
+			try {
+				slopes = ContinuityModulus.slopes(this, box);
+			} catch (ArithmeticException e) {
+				// No bound on the derivatives, so the corners are used instead
+			}
+		}
+		if (slopes == null) {
+			Function<Integer,List<Integer>> left = n -> continuityOracle.apply(
+					box.stream().map(ki -> new TernaryBoehmReal(ki.downLeft(n - ki.getPrec()).getLeftEndpoint())).toList(), n);
+			Function<Integer,List<Integer>> right = n -> continuityOracle.apply(
+					box.stream().map(ki -> new TernaryBoehmReal(ki.downRight(n - ki.getPrec()).getLeftEndpoint())).toList(), n);
+			return (n -> zipMax(Arrays.asList(left.apply(n),right.apply(n))));
+		}
+		List<Integer> ks = new ArrayList<>();
+		for (DyadicCode u : slopes) {
+			ks.add(u == null ? null : ContinuityModulus.exponent(u.multiply(new DyadicCode(arity))));
+		}
+		return (n -> {
+			List<Integer> ps = new ArrayList<>();
+			for (int i = 0; i < arity; i++) {
+				int p = box.get(i).getPrec();
+				ps.add(ks.get(i) == null ? p : Math.max(p, n + ks.get(i)));
+			}
+			return ps;
+		});
 	}
 	
 	public Function<TernaryBoehmReal,TernaryBoehmReal> getDerivative(TernaryBoehmReal epsilon) {
@@ -54,12 +161,107 @@ public class FunctionCode {
 		return approximator.apply(args);
 	}
 	
+	/*
+	 * Applies the interval approximator of a unary function to each of the
+	 * intervals. Unary polynomials evaluate the intervals together, on longs
+	 * where they fit.
+	 */
+	public List<VariableIntervalCode> applyAll(List<VariableIntervalCode> xs) {
+		if (batch != null) {
+			return batch.apply(this, xs);
+		}
+		return xs.stream().map(x -> apply(Arrays.asList(x))).toList();
+	}
+	
+	public boolean hasDoubleApproximator() {
+		return doubleApproximator != null;
+	}
+	
+	/*
+	 * An outward-rounded double enclosure of the image of the box, or the
+	 * entire real line if the function has no double approximator.
+	 */
+	public DoubleInterval applyDouble(List<DoubleInterval> args) {
+		if (doubleApproximator == null) {
+			return DoubleInterval.ENTIRE;
+		}
+		return doubleApproximator.apply(args);
+	}
+	
+	public boolean hasJetApproximator() {
+		return jetApproximator != null;
+	}
+	
+	public Jet applyJet(List<Jet> args) {
+		if (jetApproximator == null) {
+			throw new UnsupportedOperationException("No derivative is known for this function");
+		}
+		return jetApproximator.apply(args);
+	}
+	
+	/*
+	 * Encloses the image of the box args together with the partial
+	 * derivatives of the function on it.
+	 */
+	public Jet encloseJet(List<VariableIntervalCode> args) {
+		List<Jet> js = new ArrayList<>(args.size());
+		for (int i = 0; i < args.size(); i++) {
+			js.add(Jet.variable(args.get(i), i, args.size()));
+		}
+		return applyJet(js);
+	}
+	
+	public AffineForm applyAffine(List<AffineForm> args) {
+		return affineApproximator.apply(args);
+	}
+	
+	/*
+	 * Encloses the image of the box args by intersecting the interval and the
+	 * affine evaluations. The affine evaluation gives every argument its own
+	 * noise symbol, so that e.g. x - x or x^2 - x are not overestimated by the
+	 * dependency problem of interval arithmetic.
+	 */
+	public VariableIntervalCode enclose(List<VariableIntervalCode> args) {
+		return enclose(args, affineInputs(args));
+	}
+	
+	// The affine evaluation alone, for intersecting with an interval evaluation done elsewhere
+	public VariableIntervalCode encloseAffine(VariableIntervalCode x) {
+		List<VariableIntervalCode> args = Arrays.asList(x);
+		return applyAffine(affineInputs(args)).toVariableIntervalCode();
+	}
+	
+	private VariableIntervalCode enclose(List<VariableIntervalCode> args, List<AffineForm> as) {
+		return apply(args).intersect(applyAffine(as).toVariableIntervalCode());
+	}
+	
+	/*
+	 * Encloses the images of several functions on the same box, building the
+	 * affine forms of the arguments only once.
+	 */
+	public static List<VariableIntervalCode> encloseAll(List<FunctionCode> fs, List<VariableIntervalCode> args) {
+		List<AffineForm> as = affineInputs(args);
+		return fs.stream().map(f -> f.enclose(args, as)).toList();
+	}
+	
+	private static List<AffineForm> affineInputs(List<VariableIntervalCode> args) {
+		List<AffineForm> as = new ArrayList<>();
+		for (int i = 0; i < args.size(); i++) {
+			as.add(AffineForm.fromInput(args.get(i), i, args.size()));
+		}
+		return as;
+	}
+	
 	// Compose functions
 	
 	private static List<VariableIntervalCode> map(List<FunctionCode> gs, List<VariableIntervalCode> args) {
 		return gs.stream().map(g -> g.apply(args)).toList();
 	}
 	
+	private static List<AffineForm> mapAffine(List<FunctionCode> gs, List<AffineForm> args) {
+		return gs.stream().map(g -> g.applyAffine(args)).toList();
+	}
+	
 	private static List<Integer> zipMax(List<List<Integer>> ns) {
 		List<Integer> ps = new ArrayList<>();
 		for (int i = 0; i < ns.get(0).size(); i++) {
@@ -83,8 +285,15 @@ public class FunctionCode {
 						gps.add(gs.get(i).continuityOracle.apply(xs, fps.get(i)));
 					}
 					return zipMax(gps);
-				}
-			);
+				},
+				xs -> f.applyAffine(mapAffine(gs,xs))
+			).withDouble(f.hasDoubleApproximator() && gs.stream().allMatch(g -> g.hasDoubleApproximator())
+				? xs -> f.applyDouble(gs.stream().map(g -> g.applyDouble(xs)).toList())
+				: null)
+			.withJet(f.hasJetApproximator() && gs.stream().allMatch(g -> g.hasJetApproximator())
+				? xs -> f.applyJet(gs.stream().map(g -> g.applyJet(xs)).toList())
+				: null)
+			.withKey("compose", arity, f.getKey(), gs.stream().map(g -> g.getKey()).toList());
 	}
 	
 	// Static members
@@ -101,8 +310,9 @@ public class FunctionCode {
 						}
 					}
 					return qs;
-				}
-			);
+				},
+				(xs -> xs.get(i))
+			).withDouble(xs -> xs.get(i)).withJet(xs -> xs.get(i)).withKey("proj", arity, i);
 	}
 	
 	public static FunctionCode constant(int arity, TernaryBoehmReal y) {
@@ -114,19 +324,25 @@ public class FunctionCode {
 					}
 					return qs;
 				}
-			);
+			).withDouble(doubleConstant(y))
+			.withJet(xs -> Jet.constant(new SpecificIntervalCode(y, xs.get(0).getValue().getPrec()).getVariableIntervalCode(), arity))
+			.withKey("constant", arity, y.getKey());
 	}
 	
 	public static FunctionCode abs() {
-		return new FunctionCode(1, xs -> xs.get(0).abs(), (xs,q) -> Arrays.asList(q));
+		return new FunctionCode(1, xs -> xs.get(0).abs(), (xs,q) -> Arrays.asList(q), xs -> xs.get(0).abs())
+				.withDouble(xs -> xs.get(0).abs()).withJet(xs -> xs.get(0).abs()).withKey("abs");
 	}
 	
 	public static FunctionCode negate() {
-		return new FunctionCode(1, xs -> xs.get(0).negate(), (xs,q) -> Arrays.asList(q));
+		return new FunctionCode(1, xs -> xs.get(0).negate(), (xs,q) -> Arrays.asList(q), xs -> xs.get(0).negate())
+				.withDouble(xs -> xs.get(0).negate()).withJet(xs -> xs.get(0).negate()).withKey("negate");
 	}
 	
 	public static FunctionCode add() {
-		return new FunctionCode(2, xs -> xs.get(0).add(xs.get(1)), (xs,q) -> Arrays.asList(q + 1, q + 1));
+		return new FunctionCode(2, xs -> xs.get(0).add(xs.get(1)), (xs,q) -> Arrays.asList(q + 1, q + 1),
+				xs -> xs.get(0).add(xs.get(1))).withDouble(xs -> xs.get(0).add(xs.get(1)))
+				.withJet(xs -> xs.get(0).add(xs.get(1))).withKey("add");
 	}
 	
 	public static FunctionCode multiply() {
@@ -139,8 +355,9 @@ public class FunctionCode {
 							).bitLength() - 2;
 					// System.out.println(p + " , " + p2);
 					return Arrays.asList(p2,p2);
-				}
-			);
+				},
+				xs -> xs.get(0).multiply(xs.get(1))
+			).withDouble(xs -> xs.get(0).multiply(xs.get(1))).withJet(xs -> xs.get(0).multiply(xs.get(1))).withKey("multiply");
 	}
 	
 	public static FunctionCode inverse() {
@@ -151,21 +368,56 @@ public class FunctionCode {
 				if (left.equals(BigInteger.ZERO) || right.equals(BigInteger.ZERO)) {
 					return new VariableIntervalCode(BigInteger.ZERO, BigInteger.ZERO, prec);
 				}
+				if (left.signum() > 0 || right.signum() < 0) {
+					return inverseOut(xs.get(0));
+				}
 				BigInteger fourPowP = BigInteger.valueOf(4).pow(xs.get(0).getPrec());
 				return new VariableIntervalCode(fourPowP.divide(right), fourPowP.divide(left), prec);			
 			},(xs,q) -> Arrays.asList(q)
-		);		
+		).withDouble(xs -> xs.get(0).inverse())
+		.withJet(xs -> xs.get(0).inverse(inverseOut(xs.get(0).getValue())))
+		.withKey("inverse");		
+	}
+	
+	/*
+	 * An enclosure of 1/x, rounded outward, on the precision-level of x (or 0
+	 * if that is coarser). The inverse is unbounded on an interval containing
+	 * 0, which no interval code can enclose.
+	 */
+	private static VariableIntervalCode inverseOut(VariableIntervalCode x) {
+		if (x.getLeftCode().signum() <= 0 && x.getRightCode().signum() >= 0) {
+			throw new ArithmeticException("The inverse is unbounded on " + x);
+		}
+		int prec = Math.max(x.getPrec(), 0);
+		VariableIntervalCode y = x.down(prec - x.getPrec());
+		BigInteger fourPowP = BigInteger.ONE.shiftLeft(2 * prec);
+		BigInteger left = floorDiv(fourPowP, y.getRightCode());
+		BigInteger right = floorDiv(fourPowP.negate(), y.getLeftCode()).negate();
+		return new VariableIntervalCode(left, right, prec);
+	}
+	
+	private static BigInteger floorDiv(BigInteger a, BigInteger b) {
+		BigInteger[] qr = a.divideAndRemainder(b);
+		if (qr[1].signum() != 0 && a.signum() != b.signum()) {
+			return qr[0].subtract(BigInteger.ONE);
+		}
+		return qr[0];
 	}
 	
 	public static FunctionCode constantMul(TernaryBoehmReal y) {
+		Function<List<DoubleInterval>,DoubleInterval> dy = doubleConstant(y);
 		return new FunctionCode(1, xs -> xs.get(0).multiply(y.toVariableFunction().apply(xs.get(0).getPrec())), 
 				(xs,q) -> {
 					int p = xs.get(0).approx(q).multiply(BigInteger.TWO).abs().add(
 								y.approx(q).multiply(BigInteger.TWO).abs()
 							).bitLength() - 2;
 					return Arrays.asList(p);
-				}
-			);
+				},
+				xs -> xs.get(0).multiply(AffineForm.fromInterval(
+						y.toVariableFunction().apply(xs.get(0).getPrec()), xs.get(0).getArity()))
+			).withDouble(xs -> xs.get(0).multiply(dy.apply(xs)))
+			.withJet(xs -> xs.get(0).scale(y.toVariableFunction().apply(xs.get(0).getValue().getPrec())))
+			.withKey("constantMul", y.getKey());
 	}
 	
 	// Composed functions
@@ -227,7 +479,9 @@ public class FunctionCode {
 	}
 	
 	public static FunctionCode unaryPolynomial(List<Pair<TernaryBoehmReal,Integer>> ains) {
-		return sum(1, ains.stream().map(ain -> polyTerm(1, ain.getFst(), 0, ain.getSnd())).toList());
+		FunctionCode f = sum(1, ains.stream().map(ain -> polyTerm(1, ain.getFst(), 0, ain.getSnd())).toList());
+		f.batch = new PolynomialBatch(ains);
+		return f;
 	}
 	
 	// Convergent streams
@@ -252,7 +506,7 @@ public class FunctionCode {
 						((n) -> {
 //							System.out.println(continuityOracle.apply(args, n));
 							return continuityOracle.apply(args, n);
-						}))));
+						})))).withKey(Arrays.asList("apply", getKey(), args.stream().map(arg -> arg.getKey()).toList()));
 	}
 	
 	public TernaryBoehmReal F_cont(List<TernaryBoehmReal> args, SpecificIntervalCode ki) {
@@ -267,4 +521,8 @@ public class FunctionCode {
 		return approximator.apply(Arrays.asList(vi));
 	}
 
+	public VariableIntervalCode enclose(VariableIntervalCode vi) {
+		return enclose(Arrays.asList(vi));
+	}
+
 }
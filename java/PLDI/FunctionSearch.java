@@ -2,6 +2,8 @@ package PLDI;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /*
  * The goal of this file is to search FunctionCodes for a given Predicate, 
@@ -38,6 +40,7 @@ public class FunctionSearch {
     SpecificIntervalCode answer; // The interval that contains the real
     int intervalsChecked = 0; // The number of intervals checked
     long timeTaken; // The time taken to do the search
+    Checkpoint checkpoint; // Where to save the state of the search, if anywhere
 
     // Constructor
     public FunctionSearch(FunctionCode function, PredicateCode predicate, VariableIntervalCode compactInterval) {
@@ -93,6 +96,11 @@ public class FunctionSearch {
         return intervalsChecked;
     }
 
+    // Setters
+    public void setCheckpoint(Checkpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
     // Methods
 
     // Discretize the range [a,b] into 2^Epsilon intervals
@@ -103,10 +111,58 @@ public class FunctionSearch {
         return frontier; 
     } 
 
+    /*
+     * Restore the frontier and counters from the checkpoint, if there is one.
+     * Returns false if the range has to be discretized instead.
+     */
+    boolean resume() {
+        Checkpoint.State state = checkpoint == null ? null : checkpoint.load(getClass().getName(), checkpointProblem(), 1);
+        if (state == null) {
+            return false;
+        }
+        frontier = new ArrayList<SpecificIntervalCode>(state.frontier.stream().map(p -> p.getFst()).toList());
+        intervalsChecked = (int) state.counters[0];
+        return true;
+    }
+
+    /*
+     * The problem named in the header of the checkpoint.
+     */
+    String checkpointProblem() {
+        return Checkpoint.problem(function, predicate, compactInterval);
+    }
+
+    /*
+     * Count a step of the search towards the next checkpoint.
+     */
+    void saveCheckpoint() {
+        if (checkpoint != null) {
+            checkpoint.tick(() -> {
+                Checkpoint.State state = new Checkpoint.State(getClass().getName(), checkpointProblem());
+                state.frontier = new ArrayList<Pair<SpecificIntervalCode,VariableIntervalCode>>(pending().stream().map(s -> new Pair<SpecificIntervalCode,VariableIntervalCode>(s, null)).toList());
+                state.counters = new long[] { intervalsChecked };
+                return state;
+            });
+        }
+    }
+
+    /*
+     * The intervals still to be checked, in the order they will be checked.
+     */
+    List<SpecificIntervalCode> pending() {
+        return frontier;
+    }
+
     Boolean check() {
-        SpecificIntervalCode tmp = frontier.get(0);
+        return check(frontier.get(0));
+    }
+
+    /*
+     * Check the predicate on the image of the left endpoint of the interval.
+     */
+    Boolean check(SpecificIntervalCode tmp) {
         TernaryBoehmReal x = new TernaryBoehmReal(tmp.getLeftEndpoint());
-        if (predicate.getPredicate().apply(x)) {
+        if (predicate.getPredicate().apply(function.F_star(Arrays.asList(x)))) {
             return true;
         } else {
             return false;
@@ -115,9 +171,13 @@ public class FunctionSearch {
 
     Boolean search() {
         long startTime = System.nanoTime();
-        discretize();
+        if (!resume()) {
+            discretize();
+        }
         while (frontier.size() > 0 && !found) {
+            Cancellation.check();
             intervalsChecked++;
+            saveCheckpoint();
             if (check()) {
                 found = true;
                 answer = frontier.get(0);
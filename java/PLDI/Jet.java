@@ -0,0 +1,120 @@
+package PLDI;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+public class Jet {
+
+	// Implementation of first-order jets of interval codes
+	// (v,[d1,...,dn]) encloses the value of a function on a box together with
+	// each of its partial derivatives on the same box, so evaluating a
+	// function on jets of its inputs gives an enclosure of its gradient by
+	// forward-mode differentiation.
+
+	private VariableIntervalCode value;
+	private List<VariableIntervalCode> gradient;
+
+	private static final VariableIntervalCode ZERO = new VariableIntervalCode(BigInteger.ZERO, BigInteger.ZERO, 0);
+	private static final VariableIntervalCode ONE = new VariableIntervalCode(BigInteger.ONE, BigInteger.ONE, 0);
+
+	// Constructors
+
+	public Jet(VariableIntervalCode value, List<VariableIntervalCode> gradient) {
+		this.value = value;
+		this.gradient = gradient;
+	}
+
+	// The i-th input x, whose gradient is the i-th unit vector
+	public static Jet variable(VariableIntervalCode x, int i, int arity) {
+		List<VariableIntervalCode> gradient = new ArrayList<>(arity);
+		for (int j = 0; j < arity; j++) {
+			gradient.add(i == j ? ONE : ZERO);
+		}
+		return new Jet(x, gradient);
+	}
+
+	// A value that does not depend on any input
+	public static Jet constant(VariableIntervalCode x, int arity) {
+		List<VariableIntervalCode> gradient = new ArrayList<>(arity);
+		for (int j = 0; j < arity; j++) {
+			gradient.add(ZERO);
+		}
+		return new Jet(x, gradient);
+	}
+
+	// Getters
+
+	public VariableIntervalCode getValue() {
+		return value;
+	}
+
+	public List<VariableIntervalCode> getGradient() {
+		return gradient;
+	}
+
+	public VariableIntervalCode getPartial(int i) {
+		return gradient.get(i);
+	}
+
+	public int getArity() {
+		return gradient.size();
+	}
+
+	// Operations
+
+	public Jet negate() {
+		return new Jet(value.negate(), gradient.stream().map(d -> d.negate()).toList());
+	}
+
+	// |v|' = sign(v) v', and any slope in [-1,1] where v may be 0
+	public Jet abs() {
+		if (value.getLeftCode().signum() >= 0) {
+			return this;
+		} else if (value.getRightCode().signum() <= 0) {
+			return negate();
+		}
+		VariableIntervalCode sign = new VariableIntervalCode(BigInteger.ONE.negate(), BigInteger.ONE, 0);
+		return new Jet(value.abs(), gradient.stream().map(d -> d.multiply(sign)).toList());
+	}
+
+	public Jet add(Jet y) {
+		List<VariableIntervalCode> ds = new ArrayList<>(gradient.size());
+		for (int i = 0; i < gradient.size(); i++) {
+			ds.add(gradient.get(i).add(y.gradient.get(i)));
+		}
+		return new Jet(value.add(y.value), ds);
+	}
+
+	// (uv)' = u'v + uv'
+	public Jet multiply(Jet y) {
+		List<VariableIntervalCode> ds = new ArrayList<>(gradient.size());
+		for (int i = 0; i < gradient.size(); i++) {
+			ds.add(gradient.get(i).multiply(y.value).add(value.multiply(y.gradient.get(i))));
+		}
+		return new Jet(value.multiply(y.value), ds);
+	}
+
+	// Multiplication by a value that does not depend on any input
+	public Jet scale(VariableIntervalCode y) {
+		return new Jet(value.multiply(y), gradient.stream().map(d -> d.multiply(y)).toList());
+	}
+
+	// (1/u)' = -u'/u^2, given an enclosure w of 1/u
+	public Jet inverse(VariableIntervalCode w) {
+		VariableIntervalCode w2 = w.multiply(w).negate();
+		return new Jet(w, gradient.stream().map(d -> d.multiply(w2)).toList());
+	}
+
+	// The smallest jet on precision-level p that contains this one
+	public Jet roundOut(int p) {
+		return new Jet(value.roundOut(p), gradient.stream().map(d -> d.roundOut(p)).toList());
+	}
+
+	// Printers
+
+	public String toString() {
+		return "(" + value + "," + gradient + ")";
+	}
+
+}
@@ -0,0 +1,249 @@
+package PLDI;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * The certified result of a minimisation: every box that may still contain a
+ * global minimiser, the same boxes merged into disjoint intervals, and an
+ * enclosure [l,u] of the minimum value.
+ *
+ * A box can only hold a global minimiser if the left endpoint of its image is
+ * at most u, the least right endpoint over all boxes; every other box is
+ * dropped when the result is built.
+ *
+ * In a constrained minimisation only the boxes proven feasible bound the
+ * minimum from above. The boxes that are still undecided are kept apart, as
+ * they may hold no feasible point at all, and if no box is proven feasible
+ * then no box can be dropped.
+ */
+public class MinimisationResult {
+
+	private List<Pair<SpecificIntervalCode,VariableIntervalCode>> boxes;
+	private List<Pair<SpecificIntervalCode,VariableIntervalCode>> undecided; // The boxes not proven feasible
+	private List<VariableIntervalCode> minimisers;
+	private VariableIntervalCode minimum;
+	private Continuation continuation; // Null if the minimiser cannot be continued
+
+	private MinimisationResult(List<Pair<SpecificIntervalCode,VariableIntervalCode>> boxes,
+			List<Pair<SpecificIntervalCode,VariableIntervalCode>> undecided,
+			List<VariableIntervalCode> minimisers, VariableIntervalCode minimum) {
+		this.boxes = boxes;
+		this.undecided = undecided;
+		this.minimisers = minimisers;
+		this.minimum = minimum;
+	}
+
+	public static MinimisationResult of(List<Pair<SpecificIntervalCode,VariableIntervalCode>> candidates) {
+		if (candidates.isEmpty()) {
+			return new MinimisationResult(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), null);
+		}
+		DyadicCode u = candidates.get(0).getSnd().getRightEndpoint();
+		for (Pair<SpecificIntervalCode,VariableIntervalCode> c : candidates) {
+			u = u.min(c.getSnd().getRightEndpoint());
+		}
+		return of(candidates, u);
+	}
+
+	/*
+	 * As above, but with the upper bound u on the minimum given explicitly,
+	 * or null if none is known.
+	 */
+	public static MinimisationResult of(List<Pair<SpecificIntervalCode,VariableIntervalCode>> candidates, DyadicCode u) {
+		return of(candidates, new ArrayList<>(), u);
+	}
+
+	/*
+	 * The result of a constrained minimisation, from the candidates proven
+	 * feasible, the candidates still undecided, and the least right endpoint
+	 * u over the images of the boxes proven feasible (or null if there are
+	 * none). Without u every candidate is kept, and the minimum, if there is
+	 * a feasible point at all, is only known to lie between the least left
+	 * and the greatest right endpoint of their images.
+	 */
+	public static MinimisationResult of(List<Pair<SpecificIntervalCode,VariableIntervalCode>> feasible,
+			List<Pair<SpecificIntervalCode,VariableIntervalCode>> undecided, DyadicCode u) {
+		List<Pair<SpecificIntervalCode,VariableIntervalCode>> boxes = new ArrayList<>();
+		List<Pair<SpecificIntervalCode,VariableIntervalCode>> kept = new ArrayList<>();
+		DyadicCode l = u;
+		DyadicCode r = u;
+		for (List<Pair<SpecificIntervalCode,VariableIntervalCode>> candidates : Arrays.asList(feasible, undecided)) {
+			for (Pair<SpecificIntervalCode,VariableIntervalCode> c : candidates) {
+				DyadicCode cl = c.getSnd().getLeftEndpoint();
+				if (u == null || cl.compare(u) <= 0) {
+					boxes.add(c);
+					if (candidates == undecided) {
+						kept.add(c);
+					}
+					l = l == null ? cl : l.min(cl);
+					r = u != null ? u : r == null ? c.getSnd().getRightEndpoint() : r.max(c.getSnd().getRightEndpoint());
+				}
+			}
+		}
+		if (boxes.isEmpty()) {
+			return new MinimisationResult(boxes, kept, new ArrayList<>(), null);
+		}
+		boxes.sort((x,y) -> x.getFst().getLeftEndpoint().compare(y.getFst().getLeftEndpoint()));
+		kept.sort((x,y) -> x.getFst().getLeftEndpoint().compare(y.getFst().getLeftEndpoint()));
+		int maxDen = Math.max(l.getDen(), r.getDen());
+		VariableIntervalCode minimum = new VariableIntervalCode(
+				l.downLeft(maxDen - l.getDen()).getNum(), r.downLeft(maxDen - r.getDen()).getNum(), maxDen);
+		return new MinimisationResult(boxes, kept, merge(boxes), minimum);
+	}
+
+	/*
+	 * Merges boxes, sorted by their left endpoints, whenever they overlap or
+	 * touch. Each merged interval is given on the finest precision-level of
+	 * the boxes it contains.
+	 */
+	private static List<VariableIntervalCode> merge(List<Pair<SpecificIntervalCode,VariableIntervalCode>> boxes) {
+		List<VariableIntervalCode> merged = new ArrayList<>();
+		VariableIntervalCode current = null;
+		for (Pair<SpecificIntervalCode,VariableIntervalCode> box : boxes) {
+			VariableIntervalCode next = box.getFst().getVariableIntervalCode();
+			if (current == null) {
+				current = next;
+				continue;
+			}
+			if (current.getPrec() > next.getPrec()) {
+				next = next.down(current.getPrec() - next.getPrec());
+			} else if (current.getPrec() < next.getPrec()) {
+				current = current.down(next.getPrec() - current.getPrec());
+			}
+			if (next.getLeftCode().compareTo(current.getRightCode()) <= 0) {
+				BigInteger right = current.getRightCode().max(next.getRightCode());
+				current = new VariableIntervalCode(current.getLeftCode(), right, current.getPrec());
+			} else {
+				merged.add(current);
+				current = next;
+			}
+		}
+		if (current != null) {
+			merged.add(current);
+		}
+		return merged;
+	}
+
+	MinimisationResult withContinuation(Continuation continuation) {
+		this.continuation = continuation;
+		return this;
+	}
+
+	// Getters
+
+	public boolean isEmpty() {
+		return boxes.isEmpty();
+	}
+
+	public List<Pair<SpecificIntervalCode,VariableIntervalCode>> getBoxes() {
+		return boxes;
+	}
+
+	// The boxes proven to hold a feasible point
+	public List<Pair<SpecificIntervalCode,VariableIntervalCode>> getFeasibleBoxes() {
+		return boxes.stream().filter(b -> !undecided.contains(b)).toList();
+	}
+
+	// The boxes that may hold no feasible point, which are empty for an unconstrained minimisation
+	public List<Pair<SpecificIntervalCode,VariableIntervalCode>> getUndecidedBoxes() {
+		return undecided;
+	}
+
+	public List<VariableIntervalCode> getMinimisers() {
+		return minimisers;
+	}
+
+	public VariableIntervalCode getMinimum() {
+		return minimum;
+	}
+
+	public Continuation getContinuation() {
+		return continuation;
+	}
+
+	public List<TernaryBoehmReal> getMinimiserReals() {
+		return minimisers.stream().map(m -> new TernaryBoehmReal(m.getLeftEndpoint())).toList();
+	}
+
+	// Continuations
+
+	/*
+	 * What a minimisation needs to go on to a finer precision-level: the
+	 * function, the compact interval and subdivision it searched, the
+	 * precision-level it reached, the boxes that survived it and its upper
+	 * bound on the minimum. See Searchers.minimiseAll(Continuation, int).
+	 */
+	public static class Continuation {
+		private FunctionCode F;
+		private SpecificIntervalCode compact;
+		private int epsilon;
+		private Subdivision subdivision;
+		private List<Pair<SpecificIntervalCode,VariableIntervalCode>> boxes;
+		private VariableIntervalCode bound;
+
+		Continuation(FunctionCode F, SpecificIntervalCode compact, int epsilon, Subdivision subdivision,
+				List<Pair<SpecificIntervalCode,VariableIntervalCode>> boxes, VariableIntervalCode bound) {
+			this.F = F;
+			this.compact = compact;
+			this.epsilon = epsilon;
+			this.subdivision = subdivision;
+			this.boxes = boxes;
+			this.bound = bound;
+		}
+
+		public MinimisationResult minimiseAll(int epsilon) {
+			return Searchers.minimiseAll(this, epsilon);
+		}
+
+		public TernaryBoehmReal minimise(int epsilon) {
+			MinimisationResult result = minimiseAll(epsilon);
+			if (!result.isEmpty()) {
+				return new TernaryBoehmReal(result.getBoxes().get(0).getFst());
+			}
+			return new TernaryBoehmReal(666);
+		}
+
+		public FunctionCode getFunction() {
+			return F;
+		}
+
+		public SpecificIntervalCode getCompact() {
+			return compact;
+		}
+
+		public int getEpsilon() {
+			return epsilon;
+		}
+
+		public Subdivision getSubdivision() {
+			return subdivision;
+		}
+
+		public List<Pair<SpecificIntervalCode,VariableIntervalCode>> getBoxes() {
+			return boxes;
+		}
+
+		public VariableIntervalCode getBound() {
+			return bound;
+		}
+	}
+
+	// Printers
+
+	public String toString() {
+		if (isEmpty()) {
+			return "No minimum found\n";
+		}
+		String str = "Minimum in [" + minimum.getLeftEndpoint().toDouble() + "," + minimum.getRightEndpoint().toDouble() + "]\n";
+		for (VariableIntervalCode m : minimisers) {
+			str += "[" + m.getLeftEndpoint().toDouble() + "," + m.getRightEndpoint().toDouble() + "]\n";
+		}
+		if (!undecided.isEmpty()) {
+			str += undecided.size() + " of " + boxes.size() + " boxes not proven feasible\n";
+		}
+		return str;
+	}
+
+}
@@ -0,0 +1,216 @@
+package PLDI;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Solves f(x) = y on a compact interval with the Krawczyk interval Newton
+ * operator
+ *
+ *   K(X) = m - c g(m) + (1 - c G'(X)) (X - m),
+ *
+ * where g = f - y, m is the midpoint of X, G'(X) encloses g' on X (from the
+ * jets of f) and c is a dyadic approximation of 1 / g'(m). Every root of g in
+ * X also lies in K(X), and if K(X) lies in the interior of X then X holds
+ * exactly one root.
+ *
+ * The compact interval is bisected, discarding boxes on which g cannot
+ * vanish or whose Krawczyk image misses them, until some box is certified.
+ * The certificate is checked on the box widened by a quarter on each side,
+ * so that a root on the edge of a box can still be found. Since that margin
+ * may reach outside the compact interval, the root is then located in the
+ * widened box cut down to the compact interval: K(X) contained in X (if not
+ * in its interior) already proves that X holds a root, so a root on the
+ * edge of the compact interval is found too, and one outside it is not.
+ * From there each iteration replaces X by K(X) intersected with X, which
+ * roughly doubles the number of correct bits, with every computation done
+ * on a precision-level a little above twice the current number of bits and
+ * rounded outward.
+ */
+public class NewtonSolver {
+
+	private static final int GUARD = 16; // Extra precision-levels for each iteration
+	private static final int MAX_BOXES = 1 << 16; // Bisections before giving up
+	private static final int MAX_DEPTH = 48; // Levels below the compact interval, e.g. near a multiple root
+	private static final int MAX_STALLS = 8; // Refinements in a row that make no progress before giving up
+
+	private FunctionCode g;
+
+	private NewtonSolver(FunctionCode f, TernaryBoehmReal y) {
+		this.g = FunctionCode.compose(1, FunctionCode.subtract(), Arrays.asList(f, FunctionCode.constant(1, y)));
+	}
+
+	// Solving
+
+	/*
+	 * Returns the unique root of f(x) = y in the first box of the compact
+	 * interval on which one is certified, as a real that is refined by
+	 * Newton iterations when it is approximated, or 666 if none is found.
+	 * An approximation is 666 too if the iterations stop making progress,
+	 * which can happen when g' is not bounded away from 0 near the root.
+	 */
+	public static TernaryBoehmReal solve(FunctionCode f, TernaryBoehmReal y, SpecificIntervalCode compact) {
+		assert(f.getArity() == 1);
+		if (!f.hasJetApproximator()) {
+			return new TernaryBoehmReal(666);
+		}
+		NewtonSolver solver = new NewtonSolver(f, y);
+		VariableIntervalCode x = solver.isolate(compact.getVariableIntervalCode());
+		if (x == null) {
+			return new TernaryBoehmReal(666);
+		}
+		VariableIntervalCode[] box = { x };
+		return new TernaryBoehmReal(prec -> {
+			synchronized (box) {
+				int stalls = 0;
+				while (width(box[0]).compare(new DyadicCode(BigInteger.ONE, prec)) > 0) {
+					Cancellation.check();
+					VariableIntervalCode k = solver.krawczyk(box[0]);
+					VariableIntervalCode next = k == null ? null : intersection(k, box[0]);
+					if (next == null || width(next).compare(width(box[0])) >= 0) {
+						// No progress on this level, so the next iteration works on a finer one
+						if (++stalls > MAX_STALLS) {
+							return new TernaryBoehmReal(666).approxAsSpecificIntervalCode(prec);
+						}
+						next = box[0].down(GUARD);
+					} else {
+						stalls = 0;
+					}
+					box[0] = next;
+				}
+				DyadicCode l = box[0].getLeftEndpoint();
+				return new SpecificIntervalCode(l.upRight(l.getDen() - prec).getNum().shiftLeft(Math.max(prec - l.getDen(), 0)), prec);
+			}
+		});
+	}
+
+	/*
+	 * Bisects the interval until the Krawczyk image of some box lies inside
+	 * it, and returns that box, or null if no root is certified.
+	 */
+	private VariableIntervalCode isolate(VariableIntervalCode compact) {
+		List<VariableIntervalCode> frontier = new ArrayList<>(Arrays.asList(compact));
+		int boxes = 0;
+		while (!frontier.isEmpty() && boxes < MAX_BOXES) {
+			Cancellation.check();
+			boxes++;
+			VariableIntervalCode x = frontier.remove(frontier.size() - 1);
+			VariableIntervalCode gx = value(x);
+			if (gx != null && (gx.getLeftCode().signum() > 0 || gx.getRightCode().signum() < 0)) {
+				continue;
+			}
+			VariableIntervalCode k = krawczyk(x);
+			if (k != null && intersection(k, x) == null) {
+				continue;
+			}
+			// A root on the boundary of x is only ever in the interior of a larger box
+			VariableIntervalCode xi = inflate(x);
+			VariableIntervalCode ki = krawczyk(xi);
+			if (ki != null && inInterior(ki, xi)) {
+				// The only root in xi, which is in the compact interval if K maps xc into itself
+				VariableIntervalCode xc = intersection(xi, compact);
+				VariableIntervalCode kc = krawczyk(xc);
+				if (kc != null && contains(xc, kc)) {
+					return intersection(kc, xc);
+				}
+				if (intersection(intersection(ki, xi), compact) == null) {
+					continue;
+				}
+			}
+			if (x.getPrec() - compact.getPrec() < MAX_DEPTH) {
+				frontier.add(x.downRight());
+				frontier.add(x.downLeft());
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * Encloses g on x by its jet, or gives null if g is unbounded on x. The
+	 * jets are rounded outward, and fail on an interval where g has a pole,
+	 * whereas the interval approximators need not be sound there (e.g. that
+	 * of an inverse of an interval containing 0), so a box holding a root
+	 * must not be discarded by their sign.
+	 */
+	private VariableIntervalCode value(VariableIntervalCode x) {
+		try {
+			return g.encloseJet(Arrays.asList(x)).getValue();
+		} catch (ArithmeticException e) {
+			return null;
+		}
+	}
+
+	/*
+	 * K(X), computed on a precision-level a little above twice the number of
+	 * bits that X already has, or null if g' may vanish at the midpoint.
+	 */
+	VariableIntervalCode krawczyk(VariableIntervalCode x) {
+		int prec = Math.max(x.getPrec(), 2 * bits(x)) + GUARD;
+		DyadicCode m = x.getMidpoint();
+		VariableIntervalCode mp = point(m, prec);
+		VariableIntervalCode gm = g.apply(Arrays.asList(mp)).roundOut(prec);
+		VariableIntervalCode dgx;
+		VariableIntervalCode dgm;
+		try {
+			dgx = g.encloseJet(Arrays.asList(x.down(prec - x.getPrec()))).getPartial(0).roundOut(prec);
+			dgm = g.encloseJet(Arrays.asList(mp)).getPartial(0).roundOut(prec);
+		} catch (ArithmeticException e) {
+			// g' is unbounded on x, e.g. an inverse of an interval containing 0
+			return null;
+		}
+		DyadicCode d = dgm.getMidpoint();
+		if (d.getNum().signum() == 0) {
+			return null;
+		}
+		// c = 1/d on precision-level prec
+		VariableIntervalCode c = point(new DyadicCode(BigInteger.ONE.shiftLeft(prec + d.getDen()).divide(d.getNum()), prec), prec);
+		VariableIntervalCode one = point(new DyadicCode(1), prec);
+		VariableIntervalCode t1 = mp.add(c.multiply(gm).negate()).roundOut(prec);
+		VariableIntervalCode t2 = one.add(c.multiply(dgx).negate()).roundOut(prec)
+				.multiply(x.add(mp.negate()).roundOut(prec)).roundOut(prec);
+		return t1.add(t2);
+	}
+
+	// Interval helpers
+
+	private static VariableIntervalCode point(DyadicCode m, int prec) {
+		DyadicCode mp = m.downLeft(prec - m.getDen());
+		return new VariableIntervalCode(mp.getNum(), mp.getNum(), mp.getDen());
+	}
+
+	// x widened by a quarter of its width on each side
+	private static VariableIntervalCode inflate(VariableIntervalCode x) {
+		BigInteger w = x.getRightCode().subtract(x.getLeftCode());
+		return new VariableIntervalCode(x.getLeftCode().shiftLeft(2).subtract(w), x.getRightCode().shiftLeft(2).add(w), x.getPrec() + 2);
+	}
+	
+	// The number of bits of x, i.e. -log2 of its width
+	private static int bits(VariableIntervalCode x) {
+		return x.getPrec() - x.getRightCode().subtract(x.getLeftCode()).bitLength();
+	}
+
+	private static DyadicCode width(VariableIntervalCode x) {
+		return x.getRightEndpoint().subtract(x.getLeftEndpoint());
+	}
+
+	// The intersection of x and y, or null if they are disjoint
+	private static VariableIntervalCode intersection(VariableIntervalCode x, VariableIntervalCode y) {
+		if (x.getRightEndpoint().compare(y.getLeftEndpoint()) < 0 || y.getRightEndpoint().compare(x.getLeftEndpoint()) < 0) {
+			return null;
+		}
+		return x.intersect(y);
+	}
+
+	// True if k lies inside x
+	private static boolean contains(VariableIntervalCode x, VariableIntervalCode k) {
+		return k.getLeftEndpoint().compare(x.getLeftEndpoint()) >= 0 && k.getRightEndpoint().compare(x.getRightEndpoint()) <= 0;
+	}
+
+	// True if k lies strictly inside x
+	private static boolean inInterior(VariableIntervalCode k, VariableIntervalCode x) {
+		return k.getLeftEndpoint().compare(x.getLeftEndpoint()) > 0 && k.getRightEndpoint().compare(x.getRightEndpoint()) < 0;
+	}
+
+}
@@ -61,7 +61,7 @@ class NaiveMinimisation extends Optimisation {
         while (current.compareTo(end) < 1) {
             SpecificIntervalCode si = new SpecificIntervalCode(new DyadicCode(current,delta));
             VariableIntervalCode vi = si.getVariableIntervalCode();
-            VariableIntervalCode fvi = Function.apply(vi);
+            VariableIntervalCode fvi = Function.enclose(vi);
             Frontier.add(new Pair<>(si,fvi));
             current = current.add(BigInteger.TWO);
         }  
@@ -97,6 +97,7 @@ class NaiveMinimisation extends Optimisation {
     void optimise() {
         initialise();
         while (!Frontier.isEmpty()) {
+            Cancellation.check();
             sort();
             refine();
         }
@@ -218,7 +219,7 @@ class SplitMinimisation extends NaiveMinimisation {
     void initialise() {
         SpecificIntervalCode initial = new SpecificIntervalCode(CompactInterval);
         delta = Function.getUniformContinuityOracle(initial).apply(Epsilon).get(0);
-        VariableIntervalCode finitial = Function.apply(CompactInterval);
+        VariableIntervalCode finitial = Function.enclose(CompactInterval);
         Frontier.add(new Pair<>(initial,finitial));
         CurrentMin = finitial;
         Answer = CompactInterval;
@@ -276,8 +277,8 @@ class SplitMinimisation extends NaiveMinimisation {
         if (si.getPrec() < delta) {
             SpecificIntervalCode left = si.downLeft();
             SpecificIntervalCode right = si.downRight();
-            VariableIntervalCode fleft = Function.apply(left.getVariableIntervalCode());
-            VariableIntervalCode fright = Function.apply(right.getVariableIntervalCode());
+            VariableIntervalCode fleft = Function.enclose(left.getVariableIntervalCode());
+            VariableIntervalCode fright = Function.enclose(right.getVariableIntervalCode());
             Pair<SpecificIntervalCode,VariableIntervalCode> leftfleft = new Pair<>(left,fleft);
             Pair<SpecificIntervalCode,VariableIntervalCode> rightfright = new Pair<>(right,fright);
             System.out.println(Frontier.size());
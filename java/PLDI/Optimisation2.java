@@ -2,6 +2,8 @@ package PLDI;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
 
 /*
  * This file implements optimisation functions, in particular the minimisation
@@ -23,6 +25,11 @@ public class Optimisation2 {
     int intervalsChecked = 0; // The number of intervals checked
     long timeTaken; // The time taken to do the search
     ArrayList<VariableIntervalCode> answers = new ArrayList<VariableIntervalCode>(); // Intermediate minimum intervals
+    VariableIntervalCode upperBound; // An upper bound on the minimum, found by sampling
+    ArrayList<Pair<SpecificIntervalCode,VariableIntervalCode>> candidates = new ArrayList<Pair<SpecificIntervalCode,VariableIntervalCode>>(); // Intervals that may contain a minimum
+    Checkpoint checkpoint; // Where to save the state of the search, if anywhere
+    int samples = Searchers.SAMPLES; // The number of sample points used to find the upper bound
+    Subdivision subdivision = Subdivision.binary(); // How the best-first minimiser splits an interval
 
     // The intervals to check with their corresponding outputs
     ArrayList<Pair<SpecificIntervalCode,VariableIntervalCode>> frontier = new ArrayList<Pair<SpecificIntervalCode,VariableIntervalCode>>(); 
@@ -34,6 +41,22 @@ public class Optimisation2 {
         this.epsilon = epsilon;
     }
 
+    /*
+     * The best-first minimisation of minimisation_bounded, which keeps at most
+     * capacity intervals of the frontier in memory.
+     */
+    public static Optimisation2 bounded(FunctionCode function, VariableIntervalCode compactInterval, int epsilon, int capacity) {
+        return new minimisation_bounded(function, compactInterval, epsilon, capacity);
+    }
+
+    /*
+     * The minimisation of minimisation_bandit, which lets a bandit choose
+     * between the node-selection policies as the search goes.
+     */
+    public static Optimisation2 bandit(FunctionCode function, VariableIntervalCode compactInterval, int epsilon) {
+        return new minimisation_bandit(function, compactInterval, epsilon);
+    }
+
     // Getters
     public ArrayList<Pair<SpecificIntervalCode,VariableIntervalCode>> getFrontier() {
         return frontier;
@@ -102,7 +125,7 @@ public class Optimisation2 {
     public String getAnswersOutputsString() {
         String s = "";
         for (VariableIntervalCode answer : answers) {
-            VariableIntervalCode output = function.apply(answer);
+            VariableIntervalCode output = function.enclose(answer);
             TernaryBoehmReal tbr = new TernaryBoehmReal(answer.getLeftEndpoint());
             TernaryBoehmReal ans = new TernaryBoehmReal(output.getLeftEndpoint());
             s += tbr.toDouble(epsilon) + " -> " + ans.toDouble(epsilon) + "\n";
@@ -112,7 +135,7 @@ public class Optimisation2 {
 
     public void printAnswersOutputsString() {
         for (VariableIntervalCode answer : answers) {
-            VariableIntervalCode output = function.apply(answer);
+            VariableIntervalCode output = function.enclose(answer);
             TernaryBoehmReal tbr = new TernaryBoehmReal(answer.getLeftEndpoint());
             TernaryBoehmReal ans = new TernaryBoehmReal(output.getLeftEndpoint());
             System.out.println(tbr.toDouble(epsilon) + " -> " + ans.toDouble(epsilon));
@@ -123,11 +146,36 @@ public class Optimisation2 {
         return answers.size();
     }
 
+    public VariableIntervalCode getUpperBound() {
+        return upperBound;
+    }
+
+    /*
+     * Returns every interval that may contain a global minimum, rather than
+     * only the first one found.
+     */
+    public MinimisationResult getMinimisers() {
+        return MinimisationResult.of(candidates);
+    }
+
+    // Setters
+    public void setSamples(int samples) {
+        this.samples = samples;
+    }
+
+    public void setSubdivision(Subdivision subdivision) {
+        this.subdivision = subdivision;
+    }
+
+    public void setCheckpoint(Checkpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
     public void removeEclipsedFromFrontier(VariableIntervalCode output) {
         for (int i = 0; i < frontier.size(); i++) {
             Pair<SpecificIntervalCode,VariableIntervalCode> intervalOutput = frontier.get(i);
             VariableIntervalCode output2 = intervalOutput.getSnd();
-            if (VariableIntervalCode.eclipses(output, output2)) {
+            if (Searchers.eclipses(output, output2)) {
                 frontier.remove(i);
                 i--;
             }
@@ -142,7 +190,7 @@ public class Optimisation2 {
         ArrayList<SpecificIntervalCode> inputs = SpecificIntervalCode.discretize(delta, initialInterval.getVariableIntervalCode());
 
         for (SpecificIntervalCode interval : inputs) {
-            VariableIntervalCode output = function.apply(interval.getVariableIntervalCode());
+            VariableIntervalCode output = function.enclose(interval.getVariableIntervalCode());
             frontier.add(new Pair<SpecificIntervalCode,VariableIntervalCode>(interval, output));
         }
 
@@ -156,7 +204,8 @@ public class Optimisation2 {
         Pair<SpecificIntervalCode,VariableIntervalCode> intervalOutput = frontier.remove(0);
         SpecificIntervalCode interval = intervalOutput.getFst();
         VariableIntervalCode output = intervalOutput.getSnd();
-        if (SpecificIntervalCode.lessThan(output, this.output)) {
+        addCandidate(intervalOutput);
+        if (this.output == null || SpecificIntervalCode.lessThan(output, this.output)) {
             this.input = interval;
             this.output = output;
             answers.add(interval.getVariableIntervalCode());
@@ -169,9 +218,13 @@ public class Optimisation2 {
     void minimise() {
         long startTime = System.nanoTime();
         
-        initialise();
+        if (!resume()) {
+            initialise();
+        }
         while (frontier.size() > 0) {
+            Cancellation.check();
             intervalsChecked++;
+            saveCheckpoint();
             check();
         }
         timeTaken = System.nanoTime() - startTime;
@@ -194,11 +247,12 @@ public class Optimisation2 {
 
     /*
      * This function returns true if the given interval is eclipsed by any of
-     * the intervals in the frontier.
+     * the intervals in the frontier, i.e. lies strictly above one of them.
+     * Intervals that merely touch are kept, since both may hold a minimum.
      */
     boolean eclipsed(VariableIntervalCode vi) {
         for (Pair<SpecificIntervalCode,VariableIntervalCode> p : frontier) {
-            if (VariableIntervalCode.eclipses(p.getSnd() , vi)) {
+            if (Searchers.eclipses(p.getSnd() , vi)) {
                 return true;
             }
         }
@@ -210,7 +264,7 @@ public class Optimisation2 {
      * the frontier or another given interval.
      */
     boolean eclipsed(VariableIntervalCode vi, VariableIntervalCode vi2) {
-        if (VariableIntervalCode.eclipses(vi,vi2)) {
+        if (Searchers.eclipses(vi2,vi)) {
             return true;
         }
         return eclipsed(vi);
@@ -222,13 +276,101 @@ public class Optimisation2 {
      */
     boolean eclipsed(VariableIntervalCode vi, ArrayList<VariableIntervalCode> answers) {
         for (VariableIntervalCode v : answers) {
-            if (VariableIntervalCode.eclipses(v,vi)) {
+            if (Searchers.eclipses(v,vi)) {
                 return true;
             }
         }
         return false;
     }
 
+    /*
+     * Restore the state of the search from the checkpoint, if there is one.
+     * Returns false if the search has to be initialised instead.
+     */
+    boolean resume() {
+        Checkpoint.State state = checkpoint == null ? null : checkpoint.load(checkpointEngine(), checkpointProblem(), saveCounters().length);
+        if (state == null) {
+            return false;
+        }
+        frontier = new ArrayList<Pair<SpecificIntervalCode,VariableIntervalCode>>(state.frontier);
+        answers = new ArrayList<VariableIntervalCode>(state.answers.stream().map(p -> p.getSnd()).toList());
+        candidates = new ArrayList<Pair<SpecificIntervalCode,VariableIntervalCode>>(state.candidates);
+        input = state.incumbent.getFst();
+        output = state.incumbent.getSnd();
+        upperBound = state.bound;
+        restoreCounters(state.counters);
+        return true;
+    }
+
+    /*
+     * Count a step of the search towards the next checkpoint.
+     */
+    void saveCheckpoint() {
+        if (checkpoint != null) {
+            checkpoint.tick(() -> {
+                Checkpoint.State state = new Checkpoint.State(checkpointEngine(), checkpointProblem());
+                state.frontier = new ArrayList<Pair<SpecificIntervalCode,VariableIntervalCode>>(frontierNodes());
+                state.answers = new ArrayList<Pair<SpecificIntervalCode,VariableIntervalCode>>(answers.stream().map(a -> new Pair<SpecificIntervalCode,VariableIntervalCode>(null, a)).toList());
+                state.candidates = new ArrayList<Pair<SpecificIntervalCode,VariableIntervalCode>>(candidates);
+                state.incumbent = new Pair<SpecificIntervalCode,VariableIntervalCode>(input, output);
+                state.bound = upperBound;
+                state.counters = saveCounters();
+                return state;
+            });
+        }
+    }
+
+    /*
+     * The counters of the search, for the checkpoint, and restoring them
+     * from it.
+     */
+    long[] saveCounters() {
+        return new long[] { intervalsChecked };
+    }
+
+    void restoreCounters(long[] counters) {
+        intervalsChecked = (int) counters[0];
+    }
+
+    /*
+     * The intervals still to be checked, for the checkpoint.
+     */
+    List<Pair<SpecificIntervalCode,VariableIntervalCode>> frontierNodes() {
+        return frontier;
+    }
+
+    /*
+     * The engine and the problem named in the header of the checkpoint, so
+     * that a checkpoint is only resumed by the search that saved it.
+     */
+    String checkpointEngine() {
+        return getClass().getName();
+    }
+
+    String checkpointProblem() {
+        return Checkpoint.problem(function, compactInterval, epsilon);
+    }
+
+    /*
+     * Record an interval at the precision level that was not eclipsed, and
+     * drop the candidates that its output now rules out.
+     */
+    void addCandidate(Pair<SpecificIntervalCode,VariableIntervalCode> intervalOutput) {
+        VariableIntervalCode output = intervalOutput.getSnd();
+        candidates.removeIf(c -> Searchers.eclipses(output, c.getSnd()));
+        if (candidates.stream().noneMatch(c -> Searchers.eclipses(c.getSnd(), output))) {
+            candidates.add(intervalOutput);
+        }
+    }
+
+    /*
+     * This function returns true if the given interval lies strictly above
+     * the upper bound found by sampling, so it cannot contain the minimum.
+     */
+    boolean aboveUpperBound(VariableIntervalCode vi) {
+        return upperBound != null && Searchers.eclipses(upperBound, vi);
+    }
+
 }
 
 /*
@@ -253,6 +395,7 @@ public class Optimisation2 {
 class minimisation_heuristic extends Optimisation2 {
     int delta;
     SpecificIntervalCode initialInterval;
+    int settled = 0; // The children that reached the precision level
 
     public minimisation_heuristic(FunctionCode function, VariableIntervalCode compactInterval, int epsilon) {
         super(function, compactInterval, epsilon);
@@ -263,12 +406,16 @@ class minimisation_heuristic extends Optimisation2 {
     // Methods
 
     /*
-     * Initialise the frontier with the initial interval and its output.
+     * Initialise the frontier with the initial interval and its output, and
+     * seed the upper bound on the minimum by sampling the function.
      */
     ArrayList<Pair<SpecificIntervalCode,VariableIntervalCode>> initialise() {
         VariableIntervalCode input = initialInterval.getVariableIntervalCode();
-        VariableIntervalCode output = function.apply(input);
+        VariableIntervalCode output = function.enclose(input);
         frontier.add(new Pair<SpecificIntervalCode,VariableIntervalCode>(initialInterval, output));
+        if (samples > 0) {
+            upperBound = Searchers.sampleUpperBound(function, initialInterval, samples, true);
+        }
         return frontier;
     }
 
@@ -286,14 +433,16 @@ class minimisation_heuristic extends Optimisation2 {
         SpecificIntervalCode interval = intervalOutput.getFst();
         SpecificIntervalCode leftsi = interval.downLeft();
         SpecificIntervalCode rightsi = interval.downRight();
-        VariableIntervalCode leftvi = function.apply(leftsi.getVariableIntervalCode());
-        VariableIntervalCode rightvi = function.apply(rightsi.getVariableIntervalCode());
+        VariableIntervalCode leftvi = function.enclose(leftsi.getVariableIntervalCode());
+        VariableIntervalCode rightvi = function.enclose(rightsi.getVariableIntervalCode());
 
         Pair<SpecificIntervalCode,VariableIntervalCode> left = new Pair<SpecificIntervalCode,VariableIntervalCode>(leftsi, leftvi);
         Pair<SpecificIntervalCode,VariableIntervalCode> right = new Pair<SpecificIntervalCode,VariableIntervalCode>(rightsi, rightvi);
 
-        if (!eclipsed(leftvi, rightvi) && !eclipsed(leftvi , answers)) {
-            if (leftsi.getPrec() >= delta || leftvi.join_prime().getPrec() >= epsilon) {
+        if (!eclipsed(leftvi, rightvi) && !eclipsed(leftvi , answers) && !aboveUpperBound(leftvi)) {
+            if (leftsi.getPrec() >= delta || leftvi.joinPrec() >= epsilon) {
+                settled++;
+                addCandidate(left);
                 if (this.output == null) {
                     this.input = leftsi;
                     this.output = leftvi;
@@ -311,8 +460,10 @@ class minimisation_heuristic extends Optimisation2 {
             }
         }
             
-        if (!eclipsed(rightvi, leftvi) && !eclipsed(rightvi , answers)) {
-            if (rightsi.getPrec() >= delta || rightvi.join_prime().getPrec() >= epsilon) {
+        if (!eclipsed(rightvi, leftvi) && !eclipsed(rightvi , answers) && !aboveUpperBound(rightvi)) {
+            if (rightsi.getPrec() >= delta || rightvi.joinPrec() >= epsilon) {
+                settled++;
+                addCandidate(right);
                 if (this.output == null) {
                     this.input = rightsi;
                     this.output = rightvi;
@@ -336,9 +487,13 @@ class minimisation_heuristic extends Optimisation2 {
 
     void minimise() {
         long startTime = System.nanoTime();     
-        initialise();
+        if (!resume()) {
+            initialise();
+        }
         while (frontier.size() > 0) {
+            Cancellation.check();
             intervalsChecked++;
+            saveCheckpoint();
             check();
         }
         timeTaken = System.nanoTime() - startTime;
@@ -364,9 +519,13 @@ class minimisation_heuristic_random extends minimisation_heuristic {
 
     void minimise() {
         long startTime = System.nanoTime();     
-        initialise();
+        if (!resume()) {
+            initialise();
+        }
         while (frontier.size() > 0) {
+            Cancellation.check();
             intervalsChecked++;
+            saveCheckpoint();
             sort();
             check();
         }
@@ -419,13 +578,359 @@ class differential_heuristic extends minimisation_heuristic {
 
     void minimise() {
         long startTime = System.nanoTime();     
-        initialise();
+        if (!resume()) {
+            initialise();
+        }
         while (frontier.size() > 0) {
+            Cancellation.check();
             intervalsChecked++;
+            saveCheckpoint();
             sort();
             check();
         }
         timeTaken = System.nanoTime() - startTime;
     }
 
-}
\ No newline at end of file
+}
+/*
+ * This class is a modification of the minimisation_heuristic class for
+ * searches whose frontier would not fit in memory. The frontier is a
+ * SpillingFrontier, which keeps the most promising intervals on the heap and
+ * writes the rest to temporary files.
+ *
+ * Intervals are checked best-first, in order of the left endpoints of their
+ * outputs. An interval whose output lies strictly above the least right
+ * endpoint found so far cannot contain the minimum; since every interval
+ * left in the frontier is at least as bad, the search stops at the first one.
+ */
+class minimisation_bounded extends minimisation_heuristic {
+    SpillingFrontier spillingFrontier;
+
+    public minimisation_bounded(FunctionCode function, VariableIntervalCode compactInterval, int epsilon, int capacity) {
+        super(function, compactInterval, epsilon);
+        spillingFrontier = new SpillingFrontier(capacity);
+    }
+
+    public SpillingFrontier getSpillingFrontier() {
+        return spillingFrontier;
+    }
+
+    ArrayList<Pair<SpecificIntervalCode,VariableIntervalCode>> initialise() {
+        VariableIntervalCode output = function.enclose(initialInterval.getVariableIntervalCode());
+        upperBound = new VariableIntervalCode(output.getRightCode(), output.getRightCode(), output.getPrec());
+        if (samples > 0) {
+            upperBound = Searchers.sampleUpperBound(function, initialInterval, samples, true);
+        }
+        spillingFrontier.add(new Pair<SpecificIntervalCode,VariableIntervalCode>(initialInterval, output));
+        return frontier;
+    }
+
+    /*
+     * Lower the upper bound on the minimum to the right endpoint of the given
+     * output, if that is smaller, and prune the frontier with it.
+     */
+    void lowerUpperBound(VariableIntervalCode vi) {
+        if (vi.getRightEndpoint().compare(upperBound.getRightEndpoint()) < 0) {
+            upperBound = new VariableIntervalCode(vi.getRightCode(), vi.getRightCode(), vi.getPrec());
+            spillingFrontier.prune(upperBound);
+        }
+    }
+
+    Boolean check() {
+        Pair<SpecificIntervalCode,VariableIntervalCode> intervalOutput = spillingFrontier.poll();
+        if (aboveUpperBound(intervalOutput.getSnd())) {
+            spillingFrontier.close();
+            return false;
+        }
+        SpecificIntervalCode interval = intervalOutput.getFst();
+        for (SpecificIntervalCode si : subdivision.children(interval, delta)) {
+            VariableIntervalCode vi = function.enclose(si.getVariableIntervalCode());
+            if (aboveUpperBound(vi)) {
+                continue;
+            }
+            lowerUpperBound(vi);
+            Pair<SpecificIntervalCode,VariableIntervalCode> child = new Pair<SpecificIntervalCode,VariableIntervalCode>(si, vi);
+            if (si.getPrec() >= delta || vi.joinPrec() >= epsilon) {
+                addCandidate(child);
+                if (this.output == null || SpecificIntervalCode.lessThan(vi, this.output)) {
+                    this.input = si;
+                    this.output = vi;
+                    answers.add(vi);
+                }
+            } else {
+                spillingFrontier.add(child);
+            }
+        }
+        return false;
+    }
+
+    /*
+     * As Optimisation2.resume, moving the restored frontier into the spilling
+     * frontier. The checkpoint holds the whole frontier, spilled nodes
+     * included.
+     */
+    boolean resume() {
+        if (!super.resume()) {
+            return false;
+        }
+        for (Pair<SpecificIntervalCode,VariableIntervalCode> node : frontier) {
+            spillingFrontier.add(node);
+        }
+        frontier.clear();
+        return true;
+    }
+
+    List<Pair<SpecificIntervalCode,VariableIntervalCode>> frontierNodes() {
+        return spillingFrontier.toList();
+    }
+
+    void minimise() {
+        long startTime = System.nanoTime();
+        if (!resume()) {
+            initialise();
+        }
+        while (!spillingFrontier.isEmpty()) {
+            Cancellation.check();
+            intervalsChecked++;
+            saveCheckpoint();
+            check();
+        }
+        timeTaken = System.nanoTime() - startTime;
+    }
+
+}
+
+/*
+ * This class is a modification of the minimisation_heuristic class that
+ * checks the frontier one precision level at a time. Every interval of the
+ * level is split, and the outputs of all the children are computed together
+ * with FunctionCode.applyAll, which evaluates unary polynomials on many
+ * intervals at once.
+ *
+ * The least right endpoint of the outputs of a level lowers the upper bound
+ * on the minimum, and every child whose output lies strictly above the upper
+ * bound is dropped. Only the children that survive this are given the
+ * tighter affine enclosure, which lowers the upper bound again.
+ */
+class minimisation_batched extends minimisation_heuristic {
+
+    public minimisation_batched(FunctionCode function, VariableIntervalCode compactInterval, int epsilon) {
+        super(function, compactInterval, epsilon);
+    }
+
+    void lowerUpperBound(VariableIntervalCode vi) {
+        if (upperBound == null || vi.getRightEndpoint().compare(upperBound.getRightEndpoint()) < 0) {
+            upperBound = new VariableIntervalCode(vi.getRightCode(), vi.getRightCode(), vi.getPrec());
+        }
+    }
+
+    Boolean check() {
+        ArrayList<SpecificIntervalCode> children = new ArrayList<SpecificIntervalCode>();
+        for (Pair<SpecificIntervalCode,VariableIntervalCode> intervalOutput : frontier) {
+            children.addAll(subdivision.children(intervalOutput.getFst(), delta));
+        }
+        frontier.clear();
+        List<VariableIntervalCode> outputs = function.applyAll(children.stream().map(si -> si.getVariableIntervalCode()).toList());
+        for (VariableIntervalCode vi : outputs) {
+            lowerUpperBound(vi);
+        }
+        ArrayList<SpecificIntervalCode> survivors = new ArrayList<SpecificIntervalCode>();
+        ArrayList<VariableIntervalCode> enclosures = new ArrayList<VariableIntervalCode>();
+        for (int i = 0; i < children.size(); i++) {
+            if (!aboveUpperBound(outputs.get(i))) {
+                VariableIntervalCode vi = outputs.get(i).intersect(function.encloseAffine(children.get(i).getVariableIntervalCode()));
+                survivors.add(children.get(i));
+                enclosures.add(vi);
+                lowerUpperBound(vi);
+            }
+        }
+        for (int i = 0; i < survivors.size(); i++) {
+            SpecificIntervalCode si = survivors.get(i);
+            VariableIntervalCode vi = enclosures.get(i);
+            if (aboveUpperBound(vi)) {
+                continue;
+            }
+            Pair<SpecificIntervalCode,VariableIntervalCode> child = new Pair<SpecificIntervalCode,VariableIntervalCode>(si, vi);
+            if (si.getPrec() >= delta || vi.joinPrec() >= epsilon) {
+                addCandidate(child);
+                if (this.output == null || SpecificIntervalCode.lessThan(vi, this.output)) {
+                    this.input = si;
+                    this.output = vi;
+                    answers.add(vi);
+                }
+            } else {
+                frontier.add(child);
+            }
+        }
+        return false;
+    }
+
+    void minimise() {
+        long startTime = System.nanoTime();
+        if (!resume()) {
+            initialise();
+        }
+        while (frontier.size() > 0) {
+            Cancellation.check();
+            intervalsChecked += frontier.size();
+            saveCheckpoint();
+            check();
+        }
+        timeTaken = System.nanoTime() - startTime;
+    }
+
+}
+
+/*
+ * This class is a modification of the minimisation_heuristic class which does
+ * not commit to one way of choosing the next interval. Which of the
+ * heuristics above does best depends on the function, so several
+ * node-selection policies share the frontier, and a multi-armed bandit
+ * (UCB1) decides which one chooses each time:
+ * - first-in-first-out, the order of minimisation_heuristic,
+ * - depth-first, the interval added last,
+ * - random, as in minimisation_heuristic_random,
+ * - differential, the widest output, as in differential_heuristic,
+ * - best-first, the least left endpoint of the output.
+ * 
+ * The reward of a step is its pruning yield per evaluation: each check
+ * encloses the two children of an interval, and the intervals that are
+ * pruned in that step (children that are eclipsed, and intervals of the
+ * frontier that the children eclipse) are counted against those two
+ * evaluations. Children that reach the precision level are not pruned, so
+ * they do not count. UCB1 plays the policy with the
+ * highest mean reward plus sqrt(2 ln t / n), where n is the number of times
+ * it has been played out of t, so a policy that stops paying off is tried
+ * less and less, but never given up on. The statistics are saved in the
+ * checkpoint with the counters of the search.
+ */
+class minimisation_bandit extends minimisation_heuristic {
+    ArrayList<Policy> policies = new ArrayList<Policy>();
+    int steps = 0;
+
+    // A node-selection policy with its statistics
+    static class Policy {
+        String name;
+        Function<ArrayList<Pair<SpecificIntervalCode,VariableIntervalCode>>,Integer> select; // The index of the interval to check next
+        int plays = 0;
+        double reward = 0;
+
+        Policy(String name, Function<ArrayList<Pair<SpecificIntervalCode,VariableIntervalCode>>,Integer> select) {
+            this.name = name;
+            this.select = select;
+        }
+
+        double mean() {
+            return reward / plays;
+        }
+    }
+
+    public minimisation_bandit(FunctionCode function, VariableIntervalCode compactInterval, int epsilon) {
+        super(function, compactInterval, epsilon);
+        policies.add(new Policy("fifo", f -> 0));
+        policies.add(new Policy("depth-first", f -> f.size() - 1));
+        policies.add(new Policy("random", f -> (int) (Math.random() * f.size())));
+        policies.add(new Policy("differential", f -> widest(f)));
+        policies.add(new Policy("best-first", f -> lowest(f)));
+    }
+
+    public ArrayList<Policy> getPolicies() {
+        return policies;
+    }
+
+    // Policies
+
+    static int widest(ArrayList<Pair<SpecificIntervalCode,VariableIntervalCode>> frontier) {
+        int index = 0;
+        DyadicCode largest = null;
+        for (int i = 0; i < frontier.size(); i++) {
+            VariableIntervalCode vi = frontier.get(i).getSnd();
+            DyadicCode width = vi.getRightEndpoint().subtract(vi.getLeftEndpoint());
+            if (largest == null || width.compare(largest) > 0) {
+                index = i;
+                largest = width;
+            }
+        }
+        return index;
+    }
+
+    static int lowest(ArrayList<Pair<SpecificIntervalCode,VariableIntervalCode>> frontier) {
+        int index = 0;
+        for (int i = 1; i < frontier.size(); i++) {
+            if (frontier.get(i).getSnd().getLeftEndpoint().compare(frontier.get(index).getSnd().getLeftEndpoint()) < 0) {
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    // The policy to play next, by UCB1, after playing every policy once
+    Policy choose() {
+        Policy best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (Policy p : policies) {
+            if (p.plays == 0) {
+                return p;
+            }
+            double score = p.mean() + Math.sqrt(2 * Math.log(steps) / p.plays);
+            if (score > bestScore) {
+                best = p;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    void minimise() {
+        long startTime = System.nanoTime();     
+        if (!resume()) {
+            initialise();
+        }
+        while (frontier.size() > 0) {
+            Cancellation.check();
+            intervalsChecked++;
+            saveCheckpoint();
+            Policy policy = choose();
+            Pair<SpecificIntervalCode,VariableIntervalCode> intervalOutput = frontier.remove((int) policy.select.apply(frontier));
+            frontier.add(0, intervalOutput);
+            int before = frontier.size();
+            int settledBefore = settled;
+            check();
+            // The rest of the frontier and the two children, less what is in the frontier now or settled
+            int pruned = (before - 1) + 2 - frontier.size() - (settled - settledBefore);
+            policy.plays++;
+            policy.reward += Math.min(1.0, pruned / 2.0);
+            steps++;
+        }
+        timeTaken = System.nanoTime() - startTime;
+    }
+
+    // The steps, then the plays and the reward of each policy
+    long[] saveCounters() {
+        long[] counters = new long[2 + 2 * policies.size()];
+        counters[0] = intervalsChecked;
+        counters[1] = steps;
+        for (int i = 0; i < policies.size(); i++) {
+            counters[2 + 2 * i] = policies.get(i).plays;
+            counters[3 + 2 * i] = Double.doubleToLongBits(policies.get(i).reward);
+        }
+        return counters;
+    }
+
+    void restoreCounters(long[] counters) {
+        super.restoreCounters(counters);
+        steps = (int) counters[1];
+        for (int i = 0; i < policies.size(); i++) {
+            policies.get(i).plays = (int) counters[2 + 2 * i];
+            policies.get(i).reward = Double.longBitsToDouble(counters[3 + 2 * i]);
+        }
+    }
+
+    void minimise_verbose() {
+        super.minimise_verbose();
+        for (Policy p : policies) {
+            System.out.println(p.name + ": played " + p.plays + " times, mean yield " + (p.plays == 0 ? 0 : p.mean()));
+        }
+    }
+
+}
@@ -0,0 +1,244 @@
+package PLDI;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Evaluates a unary polynomial, as built by FunctionCode.unaryPolynomial, on
+ * many intervals at once.
+ *
+ * The intervals of one precision-level p are held as lanes of long codes,
+ * and the polynomial is evaluated on all of them together, following the
+ * same tree of sums, products and constant multiplications as the interval
+ * approximator. Each power is computed once per batch and shared by the
+ * terms that use it, and each coefficient is approximated once per batch
+ * rather than once per interval.
+ *
+ * The precision-level of a product is the sum of those of its factors, so
+ * apply() ends on a level about as many times p as the degree, and its
+ * codes grow as fast. The lanes are instead rounded outward (as by
+ * VariableIntervalCode.roundOut) to the working level p + GUARD after each
+ * multiplication, so every lane gets an enclosure of the interval that
+ * apply() would give, wider by at most a few codes of the working level.
+ *
+ * A lane whose codes would overflow a long is marked and evaluated again
+ * through the interval approximator on BigIntegers, as is every interval
+ * whose codes do not fit in a long to begin with.
+ */
+public class PolynomialBatch {
+
+	private static final int GUARD = 16; // Precision-levels above that of the intervals on which the lanes are kept
+
+	private List<Pair<TernaryBoehmReal,Integer>> ains;
+
+	public PolynomialBatch(List<Pair<TernaryBoehmReal,Integer>> ains) {
+		this.ains = ains;
+	}
+
+	// The codes of n intervals on the same precision-level
+	private static class Lanes {
+		long[] left;
+		long[] right;
+		int prec;
+
+		Lanes(int n, int prec) {
+			this.left = new long[n];
+			this.right = new long[n];
+			this.prec = prec;
+		}
+	}
+
+	// Evaluation
+
+	/*
+	 * Returns the image of every interval under f, which must be the
+	 * function this batch was built from.
+	 */
+	public List<VariableIntervalCode> apply(FunctionCode f, List<VariableIntervalCode> xs) {
+		VariableIntervalCode[] ys = new VariableIntervalCode[xs.size()];
+		Map<Integer,List<Integer>> levels = new LinkedHashMap<>();
+		for (int i = 0; i < xs.size(); i++) {
+			VariableIntervalCode x = xs.get(i);
+			if (x.getLeftCode().bitLength() < 63 && x.getRightCode().bitLength() < 63) {
+				levels.computeIfAbsent(x.getPrec(), p -> new ArrayList<>()).add(i);
+			} else {
+				ys[i] = f.apply(Arrays.asList(x));
+			}
+		}
+		for (Map.Entry<Integer,List<Integer>> level : levels.entrySet()) {
+			List<Integer> is = level.getValue();
+			Lanes x = new Lanes(is.size(), level.getKey());
+			for (int j = 0; j < is.size(); j++) {
+				x.left[j] = xs.get(is.get(j)).getLeftCode().longValue();
+				x.right[j] = xs.get(is.get(j)).getRightCode().longValue();
+			}
+			boolean[] overflow = new boolean[is.size()];
+			Lanes y = sum(x, ains, new HashMap<>(), x.prec + GUARD, overflow);
+			for (int j = 0; j < is.size(); j++) {
+				int i = is.get(j);
+				if (overflow[j]) {
+					ys[i] = f.apply(Arrays.asList(xs.get(i)));
+				} else {
+					ys[i] = new VariableIntervalCode(BigInteger.valueOf(y.left[j]), BigInteger.valueOf(y.right[j]), y.prec);
+				}
+			}
+		}
+		return Arrays.asList(ys);
+	}
+
+	// As FunctionCode.sum, splitting the terms in half, with every product rounded to the working level
+	private static Lanes sum(Lanes x, List<Pair<TernaryBoehmReal,Integer>> ains, Map<Integer,Lanes> powers, int work, boolean[] overflow) {
+		if (ains.size() == 1) {
+			return term(x, ains.get(0), powers, work, overflow);
+		}
+		Lanes a = sum(x, ains.subList(0, ains.size()/2), powers, work, overflow);
+		Lanes b = sum(x, ains.subList(ains.size()/2, ains.size()), powers, work, overflow);
+		return add(a, b, overflow);
+	}
+
+	// As FunctionCode.polyTerm: a * x^n, with a approximated on the level of x^n
+	private static Lanes term(Lanes x, Pair<TernaryBoehmReal,Integer> ain, Map<Integer,Lanes> powers, int work, boolean[] overflow) {
+		Lanes xn = pow(x, ain.getSnd(), powers, work, overflow);
+		return multiply(xn, constant(ain.getFst(), xn.prec, x.left.length, overflow), work, overflow);
+	}
+
+	// As FunctionCode.pow: x^n = x^(n/2) * x^((n+1)/2), and x^0 = 1
+	private static Lanes pow(Lanes x, int n, Map<Integer,Lanes> powers, int work, boolean[] overflow) {
+		if (n <= 0) {
+			return constant(new TernaryBoehmReal(1), x.prec, x.left.length, overflow);
+		} else if (n == 1) {
+			return x;
+		}
+		Lanes xn = powers.get(n);
+		if (xn == null) {
+			xn = multiply(pow(x, n/2, powers, work, overflow), pow(x, (n+1)/2, powers, work, overflow), work, overflow);
+			powers.put(n, xn);
+		}
+		return xn;
+	}
+
+	// The specific interval code of y on the given level, in every lane
+	private static Lanes constant(TernaryBoehmReal y, int prec, int n, boolean[] overflow) {
+		Lanes c = new Lanes(n, prec);
+		BigInteger code = y.approx(prec);
+		if (code.bitLength() >= 62) {
+			Arrays.fill(overflow, true);
+			return c;
+		}
+		Arrays.fill(c.left, code.longValue());
+		Arrays.fill(c.right, code.longValue() + 2);
+		return c;
+	}
+
+	// Lane operations, as in VariableIntervalCode
+
+	private static Lanes add(Lanes x, Lanes y, boolean[] overflow) {
+		int prec = Math.max(x.prec, y.prec);
+		int dx = prec - x.prec;
+		int dy = prec - y.prec;
+		Lanes z = new Lanes(x.left.length, prec);
+		for (int i = 0; i < z.left.length; i++) {
+			if (overflow[i]) {
+				continue;
+			}
+			long xl = shiftLeft(x.left[i], dx);
+			long xr = shiftLeft(x.right[i], dx);
+			long yl = shiftLeft(y.left[i], dy);
+			long yr = shiftLeft(y.right[i], dy);
+			long l = xl + yl;
+			long r = xr + yr;
+			if (xl == Long.MIN_VALUE || xr == Long.MIN_VALUE || yl == Long.MIN_VALUE || yr == Long.MIN_VALUE
+					|| ((xl ^ l) & (yl ^ l)) < 0 || ((xr ^ r) & (yr ^ r)) < 0) {
+				overflow[i] = true;
+				continue;
+			}
+			z.left[i] = l;
+			z.right[i] = r;
+		}
+		return z;
+	}
+
+	/*
+	 * The product, rounded outward to the working level if it lies below it.
+	 * The products are then taken on 128 bits, so that only the rounded codes
+	 * need to fit in a long.
+	 */
+	private static Lanes multiply(Lanes x, Lanes y, int work, boolean[] overflow) {
+		int s = x.prec + y.prec - work;
+		if (s <= 0) {
+			return multiply(x, y, overflow);
+		}
+		Lanes z = new Lanes(x.left.length, work);
+		if (s >= 63) {
+			Arrays.fill(overflow, true);
+			return z;
+		}
+		for (int i = 0; i < z.left.length; i++) {
+			if (overflow[i]) {
+				continue;
+			}
+			long l = Long.MAX_VALUE;
+			long r = Long.MIN_VALUE;
+			for (int j = 0; j < 4 && !overflow[i]; j++) {
+				long u = j < 2 ? x.left[i] : x.right[i];
+				long v = (j & 1) == 0 ? y.left[i] : y.right[i];
+				long high = Math.multiplyHigh(u, v);
+				long low = u * v;
+				// floor(uv / 2^s), which must fit in a long, and then the ceiling
+				long down = (low >>> s) | (high << (64 - s));
+				boolean exact = (low & ((1L << s) - 1)) == 0;
+				if ((high >> s) != (down >> 63) || (!exact && down == Long.MAX_VALUE)) {
+					overflow[i] = true;
+					continue;
+				}
+				l = Math.min(l, down);
+				r = Math.max(r, exact ? down : down + 1);
+			}
+			if (!overflow[i]) {
+				z.left[i] = l;
+				z.right[i] = r;
+			}
+		}
+		return z;
+	}
+
+	private static Lanes multiply(Lanes x, Lanes y, boolean[] overflow) {
+		Lanes z = new Lanes(x.left.length, x.prec + y.prec);
+		for (int i = 0; i < z.left.length; i++) {
+			if (overflow[i]) {
+				continue;
+			}
+			long a = x.left[i] * y.left[i];
+			long b = x.left[i] * y.right[i];
+			long c = x.right[i] * y.left[i];
+			long d = x.right[i] * y.right[i];
+			if (Math.multiplyHigh(x.left[i], y.left[i]) != (a >> 63)
+					|| Math.multiplyHigh(x.left[i], y.right[i]) != (b >> 63)
+					|| Math.multiplyHigh(x.right[i], y.left[i]) != (c >> 63)
+					|| Math.multiplyHigh(x.right[i], y.right[i]) != (d >> 63)) {
+				overflow[i] = true;
+				continue;
+			}
+			z.left[i] = Math.min(Math.min(a, b), Math.min(c, d));
+			z.right[i] = Math.max(Math.max(a, b), Math.max(c, d));
+		}
+		return z;
+	}
+
+	// x * 2^d, or Long.MIN_VALUE if that does not fit
+	private static long shiftLeft(long x, int d) {
+		if (d == 0) {
+			return x;
+		}
+		if (d >= 63 || x == Long.MIN_VALUE || (x << d) >> d != x) {
+			return Long.MIN_VALUE;
+		}
+		return x << d;
+	}
+
+}
@@ -0,0 +1,355 @@
+package PLDI;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Isolates and refines the real roots of a unary polynomial with exact
+ * dyadic coefficients, given as (coefficient, exponent) pairs in the same
+ * way as FunctionCode.unaryPolynomial.
+ *
+ * The coefficients are scaled to integers, and the polynomial is replaced by
+ * its square-free part p / gcd(p, p'), which has the same roots, each simple.
+ * The Sturm sequence of the square-free part counts its roots in any
+ * interval (a,b] as V(a) - V(b), where V is the number of sign changes along
+ * the sequence. Starting from (-B,B], with B a power of two above the Cauchy
+ * bound, intervals are bisected until each holds exactly one root.
+ *
+ * Each root is returned as a TernaryBoehmReal. Its isolating interval is
+ * only bisected further, by the sign of the polynomial at the midpoint, when
+ * a finer approximation is asked for, and every point involved is dyadic, so
+ * all the arithmetic is on integers.
+ */
+public class PolynomialRoots {
+
+	private BigInteger[] p; // The square-free part, lowest coefficient first
+	private List<BigInteger[]> sturm;
+
+	private PolynomialRoots(BigInteger[] p) {
+		this.p = p;
+		this.sturm = sturm(p);
+	}
+
+	// Roots
+
+	/*
+	 * Returns the real roots of the polynomial, in increasing order.
+	 */
+	public static List<TernaryBoehmReal> roots(List<Pair<DyadicCode,Integer>> ains) {
+		PolynomialRoots r = new PolynomialRoots(squareFree(integerCoefficients(ains)));
+		return r.isolate().stream().map(i -> r.root(i.getFst(), i.getSnd())).toList();
+	}
+
+	/*
+	 * Returns the real roots of the polynomial in the compact interval, in
+	 * increasing order.
+	 */
+	public static List<TernaryBoehmReal> roots(List<Pair<DyadicCode,Integer>> ains, SpecificIntervalCode compact) {
+		PolynomialRoots r = new PolynomialRoots(squareFree(integerCoefficients(ains)));
+		List<TernaryBoehmReal> roots = new ArrayList<>();
+		DyadicCode a = compact.getLeftEndpoint();
+		DyadicCode b = compact.getRightEndpoint();
+		if (r.sign(a) == 0) {
+			roots.add(new TernaryBoehmReal(a));
+		}
+		for (Pair<DyadicCode,DyadicCode> i : r.isolate(a, b, r.count(a, b))) {
+			roots.add(r.root(i.getFst(), i.getSnd()));
+		}
+		return roots;
+	}
+
+	/*
+	 * Returns an isolating interval (a,b] for every root, in increasing order.
+	 */
+	public static List<Pair<DyadicCode,DyadicCode>> isolatingIntervals(List<Pair<DyadicCode,Integer>> ains) {
+		return new PolynomialRoots(squareFree(integerCoefficients(ains))).isolate();
+	}
+
+	private List<Pair<DyadicCode,DyadicCode>> isolate() {
+		BigInteger B = BigInteger.ONE.shiftLeft(rootBound(p));
+		DyadicCode a = new DyadicCode(B.negate(), 0);
+		DyadicCode b = new DyadicCode(B, 0);
+		return isolate(a, b, count(a, b));
+	}
+
+	// Bisects (a,b], which holds n roots, until every interval holds one
+	private List<Pair<DyadicCode,DyadicCode>> isolate(DyadicCode a, DyadicCode b, int n) {
+		List<Pair<DyadicCode,DyadicCode>> intervals = new ArrayList<>();
+		if (n == 0) {
+			return intervals;
+		}
+		if (n == 1) {
+			intervals.add(new Pair<>(a, b));
+			return intervals;
+		}
+		Cancellation.check();
+		DyadicCode m = midpoint(a, b);
+		int left = count(a, m);
+		intervals.addAll(isolate(a, m, left));
+		intervals.addAll(isolate(m, b, n - left));
+		return intervals;
+	}
+
+	/*
+	 * The root in (a,b], refined lazily. The endpoints are first moved so
+	 * that the polynomial changes sign strictly between them; after that,
+	 * each approximation only bisects the interval.
+	 */
+	private TernaryBoehmReal root(DyadicCode a, DyadicCode b) {
+		if (sign(b) == 0) {
+			return new TernaryBoehmReal(b);
+		}
+		while (sign(a) == 0) {
+			DyadicCode m = midpoint(a, b);
+			if (sign(m) == 0) {
+				return new TernaryBoehmReal(m);
+			}
+			if (count(a, m) == 0) {
+				a = m;
+			} else {
+				b = m;
+			}
+		}
+		DyadicCode[] ab = { a, b };
+		int sa = sign(a);
+		return new TernaryBoehmReal(prec -> {
+			synchronized (ab) {
+				while (ab[1].subtract(ab[0]).compare(new DyadicCode(BigInteger.ONE, prec)) > 0) {
+					Cancellation.check();
+					DyadicCode m = midpoint(ab[0], ab[1]);
+					int sm = sign(m);
+					if (sm == 0) {
+						ab[0] = m;
+						ab[1] = m;
+					} else if (sm == sa) {
+						ab[0] = m;
+					} else {
+						ab[1] = m;
+					}
+				}
+				// The root lies in [a,b], which has width at most 2^{-prec}
+				DyadicCode l = ab[0];
+				return new SpecificIntervalCode(l.upRight(l.getDen() - prec).getNum().shiftLeft(Math.max(prec - l.getDen(), 0)), prec);
+			}
+		});
+	}
+
+	private static DyadicCode midpoint(DyadicCode a, DyadicCode b) {
+		DyadicCode s = a.add(b);
+		return new DyadicCode(s.getNum(), s.getDen() + 1);
+	}
+
+	// The number of roots in (a,b]
+	private int count(DyadicCode a, DyadicCode b) {
+		return variations(a) - variations(b);
+	}
+
+	private int variations(DyadicCode x) {
+		int n = 0;
+		int last = 0;
+		for (BigInteger[] s : sturm) {
+			int sx = sign(s, x);
+			if (sx != 0) {
+				if (last != 0 && sx != last) {
+					n++;
+				}
+				last = sx;
+			}
+		}
+		return n;
+	}
+
+	private int sign(DyadicCode x) {
+		return sign(p, x);
+	}
+
+	// The sign of q(m/2^e), from the sign of 2^{e deg q} q(m/2^e)
+	private static int sign(BigInteger[] q, DyadicCode x) {
+		BigInteger m = x.getNum();
+		int e = x.getDen();
+		int n = q.length - 1;
+		if (e < 0) {
+			m = m.shiftLeft(-e);
+			e = 0;
+		}
+		BigInteger acc = q[n];
+		for (int i = n - 1; i >= 0; i--) {
+			acc = acc.multiply(m).add(q[i].shiftLeft(e * (n - i)));
+		}
+		return acc.signum();
+	}
+
+	// Integer polynomials
+
+	private static BigInteger[] integerCoefficients(List<Pair<DyadicCode,Integer>> ains) {
+		int den = 0;
+		int deg = 0;
+		for (Pair<DyadicCode,Integer> ain : ains) {
+			den = Math.max(den, ain.getFst().getDen());
+			deg = Math.max(deg, ain.getSnd());
+		}
+		BigInteger[] q = new BigInteger[deg + 1];
+		Arrays.fill(q, BigInteger.ZERO);
+		for (Pair<DyadicCode,Integer> ain : ains) {
+			DyadicCode a = ain.getFst().downLeft(den - ain.getFst().getDen());
+			int i = Math.max(ain.getSnd(), 0);
+			q[i] = q[i].add(a.getNum());
+		}
+		q = trim(q);
+		if (q.length == 1 && q[0].signum() == 0) {
+			throw new IllegalArgumentException("The zero polynomial has no isolated roots");
+		}
+		return q;
+	}
+
+	private static BigInteger[] trim(BigInteger[] q) {
+		int n = q.length;
+		while (n > 1 && q[n - 1].signum() == 0) {
+			n--;
+		}
+		return n == q.length ? q : Arrays.copyOf(q, n);
+	}
+
+	private static boolean isZero(BigInteger[] q) {
+		return q.length == 1 && q[0].signum() == 0;
+	}
+
+	// An exponent k such that every root has absolute value below 2^k
+	private static int rootBound(BigInteger[] q) {
+		int max = 0;
+		for (BigInteger c : q) {
+			max = Math.max(max, c.bitLength());
+		}
+		return Math.max(1, max - q[q.length - 1].bitLength() + 2);
+	}
+
+	private static BigInteger[] derivative(BigInteger[] q) {
+		if (q.length == 1) {
+			return new BigInteger[] { BigInteger.ZERO };
+		}
+		BigInteger[] d = new BigInteger[q.length - 1];
+		for (int i = 1; i < q.length; i++) {
+			d[i - 1] = q[i].multiply(BigInteger.valueOf(i));
+		}
+		return d;
+	}
+
+	// q divided by the gcd of its coefficients, with a positive leading coefficient
+	private static BigInteger[] primitive(BigInteger[] q) {
+		return reduce(q, q[q.length - 1].signum() < 0);
+	}
+
+	// q divided by the gcd of its coefficients, and negated if asked to
+	private static BigInteger[] reduce(BigInteger[] q, boolean negate) {
+		BigInteger g = BigInteger.ZERO;
+		for (BigInteger c : q) {
+			g = g.gcd(c);
+		}
+		if (g.signum() == 0) {
+			return q;
+		}
+		if (negate) {
+			g = g.negate();
+		}
+		BigInteger[] r = new BigInteger[q.length];
+		for (int i = 0; i < q.length; i++) {
+			r[i] = q[i].divide(g);
+		}
+		return r;
+	}
+
+	/*
+	 * The pseudo-remainder of a by b, scaled by a positive constant so that
+	 * it is a positive multiple of the remainder over the rationals.
+	 */
+	private static BigInteger[] remainder(BigInteger[] a, BigInteger[] b) {
+		BigInteger lb = b[b.length - 1];
+		int steps = a.length - b.length + 1;
+		BigInteger[] r = a.clone();
+		while (r.length >= b.length && !isZero(r)) {
+			BigInteger lr = r[r.length - 1];
+			int k = r.length - b.length;
+			BigInteger[] s = new BigInteger[r.length];
+			for (int i = 0; i < r.length; i++) {
+				s[i] = r[i].multiply(lb);
+				if (i >= k) {
+					s[i] = s[i].subtract(lr.multiply(b[i - k]));
+				}
+			}
+			r = r.length == 1 ? new BigInteger[] { BigInteger.ZERO } : trim(Arrays.copyOf(s, r.length - 1));
+			steps--;
+		}
+		if (lb.signum() < 0 && (a.length - b.length + 1 - steps) % 2 == 1) {
+			for (int i = 0; i < r.length; i++) {
+				r[i] = r[i].negate();
+			}
+		}
+		return r;
+	}
+
+	// a / b, where b divides a over the integers
+	private static BigInteger[] divideExact(BigInteger[] a, BigInteger[] b) {
+		BigInteger[] q = new BigInteger[a.length - b.length + 1];
+		Arrays.fill(q, BigInteger.ZERO);
+		BigInteger[] r = a.clone();
+		for (int k = a.length - b.length; k >= 0; k--) {
+			BigInteger c = r[k + b.length - 1].divide(b[b.length - 1]);
+			q[k] = c;
+			for (int i = 0; i < b.length; i++) {
+				r[k + i] = r[k + i].subtract(c.multiply(b[i]));
+			}
+		}
+		return trim(q);
+	}
+
+	// The primitive gcd of a and b, by the primitive polynomial remainder sequence
+	private static BigInteger[] gcd(BigInteger[] a, BigInteger[] b) {
+		a = primitive(a);
+		b = primitive(b);
+		while (!isZero(b)) {
+			BigInteger[] r = remainder(a, b);
+			a = b;
+			b = isZero(r) ? r : primitive(r);
+		}
+		return primitive(a);
+	}
+
+	private static BigInteger[] squareFree(BigInteger[] q) {
+		q = primitive(q);
+		if (q.length <= 2) {
+			return q;
+		}
+		BigInteger[] g = gcd(q, derivative(q));
+		if (g.length == 1) {
+			return q;
+		}
+		return primitive(divideExact(q, g));
+	}
+
+	/*
+	 * The Sturm sequence p, p', -rem(p, p'), ..., each term divided by a
+	 * positive constant, which does not change any sign.
+	 */
+	private static List<BigInteger[]> sturm(BigInteger[] q) {
+		List<BigInteger[]> s = new ArrayList<>();
+		s.add(q);
+		if (q.length == 1) {
+			return s;
+		}
+		BigInteger[] a = q;
+		BigInteger[] b = primitive(derivative(q));
+		while (!isZero(b)) {
+			s.add(b);
+			BigInteger[] r = remainder(a, b);
+			if (isZero(r)) {
+				break;
+			}
+			a = b;
+			b = reduce(r, true);
+		}
+		return s;
+	}
+
+}
@@ -1,49 +1,273 @@
 package PLDI;
 
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Function;
 
 public class PredicateCode {
 	
 	private Function<TernaryBoehmReal,Boolean> predicate;
+	private Function<VariableIntervalCode,Truth> intervalPredicate;
+	private Function<VariableIntervalCode,DyadicCode> distance = x -> ZERO;
 	public int delta;
+	private Object key; // Null if the predicate is only known by its identity
 	
+	private static final DyadicCode ZERO = new DyadicCode(0);
+	
+	/*
+	 * For the predicates built from eq, geq and leq with the connectives, the
+	 * precision-levels on which they approximate their argument, and the
+	 * predicate on those approximations. The argument is approximated once on
+	 * each level, however many atoms read it. Other predicates have none.
+	 */
+	private Set<Integer> demand;
+	private Function<Map<Integer,BigInteger>,Boolean> codePredicate;
+	
+	/*
+	 * A predicate that is only known on points, so that on an interval it is
+	 * always UNKNOWN.
+	 */
 	public PredicateCode(Function<TernaryBoehmReal,Boolean> predicate, int delta) {
+		this(predicate, x -> Truth.UNKNOWN, delta);
+	}
+	
+	/*
+	 * The interval predicate must be sound for the point predicate: TRUE on
+	 * an interval only if the predicate holds at every real in it (whatever
+	 * its approximations), and FALSE only if it holds at none.
+	 */
+	public PredicateCode(Function<TernaryBoehmReal,Boolean> predicate,
+						 Function<VariableIntervalCode,Truth> intervalPredicate, int delta) {
 		this.predicate = predicate;
+		this.intervalPredicate = intervalPredicate;
 		this.delta = delta;
 	}
 	
+	private PredicateCode(Set<Integer> demand, Function<Map<Integer,BigInteger>,Boolean> codePredicate,
+						  Function<VariableIntervalCode,Truth> intervalPredicate, int delta) {
+		this(x -> codePredicate.apply(approximations(x, demand)), intervalPredicate, delta);
+		this.demand = demand;
+		this.codePredicate = codePredicate;
+	}
+	
+	private PredicateCode withDistance(Function<VariableIntervalCode,DyadicCode> distance) {
+		this.distance = distance;
+		return this;
+	}
+	
+	private PredicateCode withKey(Object... parts) {
+		this.key = Arrays.asList(parts);
+		return this;
+	}
+	
+	// The approximations of x on each of the precision-levels
+	private static Map<Integer,BigInteger> approximations(TernaryBoehmReal x, Set<Integer> demand) {
+		Map<Integer,BigInteger> codes = new HashMap<>();
+		for (int prec : demand) {
+			codes.put(prec, x.approx(prec));
+		}
+		return codes;
+	}
+	
 	public Function<TernaryBoehmReal,Boolean> getPredicate() {
 		return predicate;
 	}
 	
+	public Function<VariableIntervalCode,Truth> getIntervalPredicate() {
+		return intervalPredicate;
+	}
+	
+	/*
+	 * A structural identity of the predicate, as FunctionCode.getKey: atoms
+	 * on constants with equal keys and on the same precision-level, and the
+	 * same connectives of predicates with equal keys, have equal keys.
+	 */
+	public Object getKey() {
+		return key == null ? this : key;
+	}
+	
 	public boolean apply(TernaryBoehmReal x) {
 		return predicate.apply(x);
 	}
 	
+	public Truth applyInterval(VariableIntervalCode x) {
+		return intervalPredicate.apply(x);
+	}
+	
+	/*
+	 * How far the interval is from the reals on which the predicate may
+	 * hold, or 0 if it may hold somewhere in it. This is only a guide for
+	 * ordering a search, and is 0 for predicates that do not know better.
+	 */
+	public DyadicCode distance(VariableIntervalCode x) {
+		return distance.apply(x);
+	}
+	
+	// Atomic predicates
+	
+	// As VariableIntervalCode.intersectsWith: the codes [a,a+2] and [b,b+2] intersect iff |a-b| <= 2
 	public static PredicateCode eq(TernaryBoehmReal y, int epsilon) {
-		return new PredicateCode(x -> x.approxAsSpecificIntervalCode(epsilon).getVariableIntervalCode().intersectsWith(y), epsilon);
+		Constant c = new Constant(y, epsilon);
+		return new PredicateCode(level(epsilon),
+								 m -> m.get(epsilon).subtract(c.get()).abs().compareTo(BigInteger.TWO) <= 0,
+								 x -> {
+									 BigInteger[] a = codes(x, epsilon);
+									 BigInteger b = c.get();
+									 if (a[0].compareTo(b.subtract(BigInteger.TWO)) >= 0 && a[1].compareTo(b.add(BigInteger.TWO)) <= 0) {
+										 return Truth.TRUE;
+									 } else if (a[1].compareTo(b.subtract(BigInteger.TWO)) < 0 || a[0].compareTo(b.add(BigInteger.TWO)) > 0) {
+										 return Truth.FALSE;
+									 }
+									 return Truth.UNKNOWN;
+								 }, epsilon)
+				.withDistance(x -> gap(x, new DyadicCode(c.get().subtract(BigInteger.TWO), epsilon),
+										  new DyadicCode(c.get().add(BigInteger.valueOf(4)), epsilon)))
+				.withKey("eq", y.getKey(), epsilon);
 	}
 	
 	public static PredicateCode geq(TernaryBoehmReal y, int epsilon) {
-		return new PredicateCode(x -> x.approx(epsilon).compareTo(y.approx(epsilon)) >= 0, epsilon);
+		Constant c = new Constant(y, epsilon);
+		return new PredicateCode(level(epsilon),
+								 m -> m.get(epsilon).compareTo(c.get()) >= 0,
+								 x -> {
+									 BigInteger[] a = codes(x, epsilon);
+									 BigInteger b = c.get();
+									 if (a[0].compareTo(b) >= 0) {
+										 return Truth.TRUE;
+									 } else if (a[1].compareTo(b) < 0) {
+										 return Truth.FALSE;
+									 }
+									 return Truth.UNKNOWN;
+								 }, epsilon)
+				.withDistance(x -> gap(x, new DyadicCode(c.get(), epsilon), null))
+				.withKey("geq", y.getKey(), epsilon);
 	}
 	
 	public static PredicateCode leq(TernaryBoehmReal y, int epsilon) {
-		return new PredicateCode(x -> x.approx(epsilon).compareTo(y.approx(epsilon)) <= 0, epsilon);
+		Constant c = new Constant(y, epsilon);
+		return new PredicateCode(level(epsilon),
+								 m -> m.get(epsilon).compareTo(c.get()) <= 0,
+								 x -> {
+									 BigInteger[] a = codes(x, epsilon);
+									 BigInteger b = c.get();
+									 if (a[1].compareTo(b) <= 0) {
+										 return Truth.TRUE;
+									 } else if (a[0].compareTo(b) > 0) {
+										 return Truth.FALSE;
+									 }
+									 return Truth.UNKNOWN;
+								 }, epsilon)
+				.withDistance(x -> gap(x, null, new DyadicCode(c.get().add(BigInteger.TWO), epsilon)))
+				.withKey("leq", y.getKey(), epsilon);
+	}
+	
+	/*
+	 * The distance from x to [lo,hi], where a missing bound is unbounded. The
+	 * atoms may hold on the reals whose codes may be close enough to the
+	 * code b of y: [(b-2)/2^e, (b+4)/2^e] for eq, from b/2^e up for geq, and
+	 * up to (b+2)/2^e for leq.
+	 */
+	private static DyadicCode gap(VariableIntervalCode x, DyadicCode lo, DyadicCode hi) {
+		if (lo != null && x.getRightEndpoint().compare(lo) < 0) {
+			return lo.subtract(x.getRightEndpoint());
+		} else if (hi != null && x.getLeftEndpoint().compare(hi) > 0) {
+			return x.getLeftEndpoint().subtract(hi);
+		}
+		return ZERO;
+	}
+	
+	private static Set<Integer> level(int epsilon) {
+		Set<Integer> demand = new TreeSet<>();
+		demand.add(epsilon);
+		return demand;
+	}
+	
+	/*
+	 * The approximation of a constant on one precision-level, computed the
+	 * first time it is needed and then shared by every evaluation.
+	 */
+	private static class Constant {
+		private final TernaryBoehmReal y;
+		private final int prec;
+		private volatile BigInteger code;
+		
+		Constant(TernaryBoehmReal y, int prec) {
+			this.y = y;
+			this.prec = prec;
+		}
+		
+		BigInteger get() {
+			BigInteger c = code;
+			if (c == null) {
+				c = y.approx(prec);
+				code = c;
+			}
+			return c;
+		}
+	}
+	
+	/*
+	 * The least and greatest code a on precision-level epsilon that a real in
+	 * [l/2^p, r/2^p] may be approximated by. Since a/2^e <= x <= (a+2)/2^e,
+	 * every such code lies in [ceil(l 2^(e-p)) - 2, floor(r 2^(e-p))].
+	 */
+	private static BigInteger[] codes(VariableIntervalCode x, int epsilon) {
+		int k = x.getPrec() - epsilon;
+		if (k <= 0) {
+			return new BigInteger[] { x.getLeftCode().shiftLeft(-k).subtract(BigInteger.TWO), x.getRightCode().shiftLeft(-k) };
+		}
+		BigInteger lo = x.getLeftCode().negate().shiftRight(k).negate();
+		return new BigInteger[] { lo.subtract(BigInteger.TWO), x.getRightCode().shiftRight(k) };
 	}
 	
+	// Connectives
+	
 	public PredicateCode not() {
-		return new PredicateCode(x -> !predicate.apply(x), delta);
+		if (demand != null) {
+			return new PredicateCode(demand, m -> !codePredicate.apply(m), x -> intervalPredicate.apply(x).not(), delta)
+					.withKey("not", getKey());
+		}
+		return new PredicateCode(x -> !predicate.apply(x), x -> intervalPredicate.apply(x).not(), delta).withKey("not", getKey());
 	}
 	
 	public PredicateCode and(PredicateCode P) {
+		Function<VariableIntervalCode,Truth> interval = x -> {
+			Truth t = intervalPredicate.apply(x);
+			return t.isFalse() ? t : t.and(P.intervalPredicate.apply(x));
+		};
+		Function<VariableIntervalCode,DyadicCode> far = x -> distance.apply(x).max(P.distance.apply(x));
+		if (demand != null && P.demand != null) {
+			return new PredicateCode(union(demand, P.demand), m -> codePredicate.apply(m) && P.codePredicate.apply(m),
+									 interval, Integer.max(delta, P.delta)).withDistance(far).withKey("and", getKey(), P.getKey());
+		}
 		return new PredicateCode(x -> predicate.apply(x) && P.predicate.apply(x), 
-								 Integer.max(delta, P.delta));
+								 interval,
+								 Integer.max(delta, P.delta)).withDistance(far).withKey("and", getKey(), P.getKey());
 	}
 	
 	public PredicateCode or(PredicateCode P) {
+		Function<VariableIntervalCode,Truth> interval = x -> {
+			Truth t = intervalPredicate.apply(x);
+			return t.isTrue() ? t : t.or(P.intervalPredicate.apply(x));
+		};
+		Function<VariableIntervalCode,DyadicCode> far = x -> distance.apply(x).min(P.distance.apply(x));
+		if (demand != null && P.demand != null) {
+			return new PredicateCode(union(demand, P.demand), m -> codePredicate.apply(m) || P.codePredicate.apply(m),
+									 interval, Integer.max(delta, P.delta)).withDistance(far).withKey("or", getKey(), P.getKey());
+		}
 		return new PredicateCode(x -> predicate.apply(x) || P.predicate.apply(x), 
-								 Integer.max(delta, P.delta));
+								 interval,
+								 Integer.max(delta, P.delta)).withDistance(far).withKey("or", getKey(), P.getKey());
+	}
+	
+	private static Set<Integer> union(Set<Integer> a, Set<Integer> b) {
+		Set<Integer> demand = new TreeSet<>(a);
+		demand.addAll(b);
+		return demand;
 	}
 	
 }
@@ -0,0 +1,159 @@
+package PLDI;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/*
+ * A bounded cache of search results, for programs that ask the same (or a
+ * coarser) question many times.
+ *
+ * A result is keyed by the kind of search, the structural identities of the
+ * function and of the target (see FunctionCode.getKey), and the compact
+ * domain; the precision-level is kept with the result. A request on the
+ * same precision-level gets the cached result itself. A request on a
+ * coarser level p' < p is answered from the result x found on p: the search
+ * on p' would look for x on the precision-level d' that the uniform
+ * continuity oracle gives for p', so x is projected onto that level with
+ * upRight. The projection moves x, and its image with it, so the projected
+ * interval is checked again against the predicate of the request, as the
+ * search on p' would check it (see accepts). Only a projection that passes
+ * is returned; otherwise the request searches again, and the finer result
+ * stays in the cache. A minimisation has no predicate to check: its
+ * projected box contains the box found on p, and so a minimiser, as the box
+ * found by a search on p' would. A request on a finer level than the cached
+ * one searches again and replaces the result.
+ *
+ * The least recently used result is dropped once the cache is full. Failed
+ * searches (666) are not cached.
+ */
+public class SearchCache {
+
+	public static final int CAPACITY = 1024;
+
+	private final Map<List<Object>,Entry> entries;
+	private long hits = 0;
+	private long misses = 0;
+
+	public SearchCache() {
+		this(CAPACITY);
+	}
+
+	public SearchCache(int capacity) {
+		this.entries = new LinkedHashMap<List<Object>,Entry>(16, 0.75f, true) {
+			protected boolean removeEldestEntry(Map.Entry<List<Object>,Entry> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	// A result, found for precision-level prec on the level delta of the domain
+	private static class Entry {
+		private final int prec;
+		private final int delta;
+		private final TernaryBoehmReal x;
+		private final Function<Integer,List<Integer>> modulus; // The uniform continuity oracle on the domain
+
+		Entry(int prec, int delta, TernaryBoehmReal x, Function<Integer,List<Integer>> modulus) {
+			this.prec = prec;
+			this.delta = delta;
+			this.x = x;
+			this.modulus = modulus;
+		}
+	}
+
+	// Searches
+
+	// As Examples.solve_equation_interval
+	public TernaryBoehmReal solve(FunctionCode f, TernaryBoehmReal y, SpecificIntervalCode compact, int prec) {
+		return lookup(Arrays.asList("solve", f.getKey(), y.getKey(), compact), f, compact, prec,
+				x -> accepts(f, PredicateCode.eq(y, prec), x),
+				() -> Searchers.exhaustive_search_interval(Searchers.searchPFinCompact(PredicateCode.eq(y, prec), f, compact), compact));
+	}
+
+	// As Searchers.minimise
+	public TernaryBoehmReal minimise(FunctionCode f, SpecificIntervalCode compact, int epsilon) {
+		return lookup(Arrays.asList("minimise", f.getKey(), compact), f, compact, epsilon, null,
+				() -> Searchers.minimise(f, compact, epsilon));
+	}
+
+	/*
+	 * As Searchers.exhaustive_search_interval for P(f(x)). The precision-level
+	 * is part of the predicate, so only the same predicate is answered.
+	 */
+	public TernaryBoehmReal search(FunctionCode f, PredicateCode P, SpecificIntervalCode compact) {
+		return lookup(Arrays.asList("search", f.getKey(), P.getKey(), compact), f, compact, P.delta, null,
+				() -> Searchers.exhaustive_search_interval(Searchers.searchPFinCompact(P, f, compact), compact));
+	}
+
+	// As exhaustive_search_interval, which returns an interval if P(f(x)) is TRUE on all of it, or on its left endpoint
+	private static boolean accepts(FunctionCode f, PredicateCode P, SpecificIntervalCode x) {
+		if (P.applyInterval(f.enclose(Arrays.asList(x.getVariableIntervalCode()))).isTrue()) {
+			return true;
+		}
+		return P.getPredicate().apply(f.F_star(Arrays.asList(new TernaryBoehmReal(x.getLeftEndpoint()))));
+	}
+
+	/*
+	 * The cached result for the key, projected onto the level of prec if it
+	 * was found on a finer one and accepted by check (if any), or else the
+	 * result of the search.
+	 */
+	private TernaryBoehmReal lookup(List<Object> key, FunctionCode f, SpecificIntervalCode compact, int prec,
+			Function<SpecificIntervalCode,Boolean> check, Supplier<TernaryBoehmReal> search) {
+		Entry entry;
+		synchronized (this) {
+			entry = entries.get(key);
+		}
+		if (entry != null && entry.prec == prec) {
+			synchronized (this) {
+				hits++;
+			}
+			return entry.x;
+		} else if (entry != null && entry.prec > prec) {
+			int delta = entry.modulus.apply(prec).get(0);
+			SpecificIntervalCode x = entry.x.approxAsSpecificIntervalCode(entry.delta).upRight(entry.delta - delta);
+			if (check == null || check.apply(x)) {
+				synchronized (this) {
+					hits++;
+				}
+				return new TernaryBoehmReal(x.getLeftEndpoint());
+			}
+		}
+		synchronized (this) {
+			misses++;
+		}
+		TernaryBoehmReal x = search.get();
+		if ((entry == null || entry.prec < prec) && !x.approx(0).equals(BigInteger.valueOf(666))) {
+			Function<Integer,List<Integer>> modulus = entry == null ? f.getUniformContinuityOracle(compact) : entry.modulus;
+			Entry found = new Entry(prec, modulus.apply(prec).get(0), x, modulus);
+			synchronized (this) {
+				entries.put(key, found);
+			}
+		}
+		return x;
+	}
+
+	// Getters
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+}
@@ -0,0 +1,16 @@
+package PLDI;
+
+/*
+ * Thrown by an approximation or a search when the cancellation context of
+ * its thread has been cancelled, its deadline has passed or the thread has
+ * been interrupted. The computation is then undecided, not failed.
+ */
+public class SearchCancelledException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public SearchCancelledException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,138 @@
+package PLDI;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/*
+ * This heuristic searches from the whole range down, rather than checking
+ * the intervals of the discretization one by one. Each interval is scored by
+ * the image of the function on it: first by how far the image is from the
+ * reals on which the predicate may hold, then by whether the sign of the
+ * derivative is known on it (if f is monotone on an interval whose image
+ * reaches the target, a witness is likely to be there), and then finer
+ * intervals before coarser ones, so that a promising interval is followed
+ * down to the precision level of the search before its neighbours are
+ * looked at. Intervals on which the predicate is FALSE for the whole image
+ * are dropped.
+ *
+ * The intervals wait in a heap ordered by score; refine() splits the best
+ * one into its two halves and insert() scores them and puts them in the
+ * heap. Only intervals on the precision level of the discretization are
+ * checked, as in FunctionSearch.
+ */
+class SearchDifferential extends SearchHeuristic {
+
+    PriorityQueue<Scored> heap = new PriorityQueue<Scored>();
+    SpecificIntervalCode current; // The interval being refined
+    int delta; // The precision level of the discretization
+
+    public SearchDifferential(FunctionCode function, PredicateCode predicate,
+            VariableIntervalCode compactInterval) {
+        super(function, predicate, compactInterval);
+    }
+
+    // An interval with its score
+    static class Scored implements Comparable<Scored> {
+        SpecificIntervalCode interval;
+        DyadicCode distance;
+        boolean monotone;
+
+        Scored(SpecificIntervalCode interval, DyadicCode distance, boolean monotone) {
+            this.interval = interval;
+            this.distance = distance;
+            this.monotone = monotone;
+        }
+
+        public int compareTo(Scored other) {
+            int c = distance.compare(other.distance);
+            if (c != 0) {
+                return c;
+            } else if (monotone != other.monotone) {
+                return monotone ? -1 : 1;
+            } else if (interval.getPrec() != other.interval.getPrec()) {
+                return interval.getPrec() > other.interval.getPrec() ? -1 : 1;
+            }
+            return interval.getLeftEndpoint().compare(other.interval.getLeftEndpoint());
+        }
+    }
+
+    // The score of the interval, or null if the predicate is false on all of its image
+    Scored score(SpecificIntervalCode interval) {
+        VariableIntervalCode x = interval.getVariableIntervalCode();
+        VariableIntervalCode image = function.enclose(Arrays.asList(x));
+        if (predicate.applyInterval(image).isFalse()) {
+            return null;
+        }
+        boolean monotone = false;
+        if (function.hasJetApproximator()) {
+            try {
+                VariableIntervalCode d = function.encloseJet(Arrays.asList(x)).getPartial(0);
+                monotone = d.getLeftCode().signum() > 0 || d.getRightCode().signum() < 0;
+            } catch (ArithmeticException e) {
+                // The derivative is unbounded on the interval, so its sign is not known
+            }
+        }
+        return new Scored(interval, predicate.distance(image), monotone);
+    }
+
+    ArrayList<SpecificIntervalCode> sort() {
+        frontier = new ArrayList<SpecificIntervalCode>(heap.stream().sorted().map(s -> s.interval).toList());
+        return frontier;
+    }
+
+    ArrayList<SpecificIntervalCode> refine() {
+        frontier = new ArrayList<SpecificIntervalCode>(Subdivision.binary().children(current, delta));
+        return frontier;
+    }
+
+    ArrayList<SpecificIntervalCode> insert() {
+        for (SpecificIntervalCode interval : frontier) {
+            Scored s = score(interval);
+            if (s != null) {
+                heap.add(s);
+            }
+        }
+        frontier = new ArrayList<SpecificIntervalCode>();
+        return frontier;
+    }
+
+    // The interval about to be checked first, then the heap in score order
+    List<SpecificIntervalCode> pending() {
+        List<SpecificIntervalCode> pending = new ArrayList<SpecificIntervalCode>(sort());
+        if (current != null && !found && current.getPrec() >= delta) {
+            pending.add(0, current);
+        }
+        return pending;
+    }
+
+    Boolean search() {
+        long startTime = System.nanoTime();
+        SpecificIntervalCode initial = new SpecificIntervalCode(compactInterval);
+        delta = function.getUniformContinuityOracle(initial).apply(epsilon).get(0);
+        heap.clear();
+        if (!resume()) {
+            frontier = new ArrayList<SpecificIntervalCode>(Arrays.asList(initial));
+        }
+        insert();
+        while (!heap.isEmpty() && !found) {
+            Cancellation.check();
+            current = heap.poll().interval;
+            if (current.getPrec() < delta) {
+                refine();
+                insert();
+                continue;
+            }
+            intervalsChecked++;
+            saveCheckpoint();
+            if (check(current)) {
+                found = true;
+                answer = current;
+            }
+        }
+        timeTaken = System.nanoTime() - startTime;
+        return found;
+    }
+
+}
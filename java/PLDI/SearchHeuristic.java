@@ -44,9 +44,13 @@ abstract class SearchHeuristic extends FunctionSearch {
 
     Boolean search() {
         long startTime = System.nanoTime();
-        discretize();
+        if (!resume()) {
+            discretize();
+        }
         while (!frontier.isEmpty() && !found) {
+            Cancellation.check();
             intervalsChecked++;
+            saveCheckpoint();
             if (check()) {
                 found = true;
                 answer = frontier.get(0);
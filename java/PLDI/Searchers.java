@@ -1,16 +1,30 @@
 package PLDI;
 
 import java.math.BigInteger;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 public class Searchers {
 	
+	// The default number of sample points used to seed the minimisers
+	public static final int SAMPLES = 256;
+	// How much finer than the spacing of the samples their boxes are
+	private static final int SAMPLE_LEVELS = 8;
+	
+	/*
+	 * P(F(x)) as a predicate on x. On an interval it is P on the enclosure of
+	 * the image of F, which contains F(x) for every x in the interval.
+	 */
 	public static PredicateCode searchPFinCompact(PredicateCode P, FunctionCode F, SpecificIntervalCode ki) {
 		return new PredicateCode(x -> P.getPredicate().apply(F.F_star(Arrays.asList(x))),
+								 x -> P.applyInterval(F.enclose(Arrays.asList(x))),
 								 F.getUniformContinuityOracle(ki).apply(P.delta).get(0));
 	}
 	
@@ -51,6 +65,7 @@ public class Searchers {
 		List<SpecificIntervalCode> searchList = intervalList(compact, P.delta);
 		System.out.println(searchList);
 		for (SpecificIntervalCode current : searchList) {
+			Cancellation.check();
 			TernaryBoehmReal x = new TernaryBoehmReal(current.getLeftEndpoint());
 			if (P.getPredicate().apply(x)) {
 				return x;
@@ -61,8 +76,44 @@ public class Searchers {
 	
 	public static TernaryBoehmReal exhaustive_search_semidecidable(PredicateCode P, SpecificIntervalCode compact, 
 														  BiFunction<Integer,TernaryBoehmReal,Boolean> semipreds) {
+		return exhaustive_search_semidecidable(P, compact, semipreds, null);
+	}
+	
+	/*
+	 * As above, saving the frontier to the checkpoint as the search goes, and
+	 * resuming from the checkpoint if it already holds a state. The
+	 * semi-predicates are part of the problem, and have no key, so the
+	 * checkpoint must be given a name for the problem.
+	 */
+	public static TernaryBoehmReal exhaustive_search_semidecidable(PredicateCode P, SpecificIntervalCode compact, 
+														  BiFunction<Integer,TernaryBoehmReal,Boolean> semipreds,
+														  Checkpoint checkpoint) {
+		return exhaustive_search_semidecidable(P, compact, semipreds, Subdivision.ternary(), checkpoint);
+	}
+	
+	/*
+	 * As above, splitting each interval into the children given by the
+	 * subdivision.
+	 */
+	public static TernaryBoehmReal exhaustive_search_semidecidable(PredicateCode P, SpecificIntervalCode compact, 
+														  BiFunction<Integer,TernaryBoehmReal,Boolean> semipreds,
+														  Subdivision subdivision, Checkpoint checkpoint) {
 		ArrayList<SpecificIntervalCode> frontier = new ArrayList<>(Arrays.asList(compact));
+		String problem = Checkpoint.problem(P, compact, semipreds);
+		Checkpoint.State saved = checkpoint == null ? null : checkpoint.load("exhaustive_search_semidecidable", problem, 0);
+		if (saved != null) {
+			frontier = new ArrayList<>(saved.frontier.stream().map(p -> p.getFst()).toList());
+		}
 		while (!frontier.isEmpty()) {
+			Cancellation.check();
+			if (checkpoint != null) {
+				List<SpecificIntervalCode> current = frontier;
+				checkpoint.tick(() -> {
+					Checkpoint.State state = new Checkpoint.State("exhaustive_search_semidecidable", problem);
+					state.frontier = new ArrayList<>(current.stream().map(s -> new Pair<SpecificIntervalCode,VariableIntervalCode>(s, null)).toList());
+					return state;
+				});
+			}
 			SpecificIntervalCode currentS = frontier.get(0);
 			int currentDelta = currentS.getPrec();
 			TernaryBoehmReal currentR = new TernaryBoehmReal(currentS);
@@ -71,19 +122,77 @@ public class Searchers {
 				if (currentDelta == P.delta && P.getPredicate().apply(currentR)) {
 					return currentR;
 				}
-				frontier.add(0, currentS.downLeft());
-				frontier.add(0, currentS.downMid());
-				frontier.add(0, currentS.downRight());
+				for (SpecificIntervalCode child : subdivision.children(currentS, P.delta)) {
+					frontier.add(0, child);
+				}
 			} else {
-				frontier.add(currentS.downLeft());
-				frontier.add(currentS.downMid());
-				frontier.add(currentS.downRight());
+				frontier.addAll(subdivision.children(currentS, P.delta));
 			}
 		}
 		return new TernaryBoehmReal(666);
 	}
 	
-	private static boolean eclipses(VariableIntervalCode fx, VariableIntervalCode fy) {
+	public static TernaryBoehmReal exhaustive_search_interval(PredicateCode P, SpecificIntervalCode compact) {
+		return exhaustive_search_interval(P, compact, Subdivision.binary());
+	}
+	
+	/*
+	 * Branch-and-bound search on the three-valued interval predicate of P.
+	 * An interval on which P is FALSE is dropped with all of its children,
+	 * and an interval on which P is TRUE is returned at once, on whatever
+	 * precision-level it was reached. Only the intervals that are still
+	 * UNKNOWN on precision-level P.delta are decided by the point predicate,
+	 * as in exhaustive_search_naive.
+	 * Near the edge of the set on which P holds, the interval predicate can
+	 * stay UNKNOWN on every level, so a plain depth-first search could check
+	 * a whole band of points on level P.delta before reaching an interval
+	 * that is TRUE on a coarse level, while a breadth-first one keeps a whole
+	 * level in memory. The search is depth-first, keeping only the children
+	 * of the intervals on the current path, but down to a limit that doubles
+	 * each round until it reaches P.delta, so coarse intervals are still
+	 * decided first. Each round checks the coarser levels again, which at
+	 * most doubles the work.
+	 */
+	public static TernaryBoehmReal exhaustive_search_interval(PredicateCode P, SpecificIntervalCode compact, 
+															   Subdivision subdivision) {
+		int limit = compact.getPrec();
+		boolean cut;
+		do {
+			limit = Math.min(P.delta, limit + Math.max(1, limit - compact.getPrec()));
+			cut = false;
+			ArrayDeque<SpecificIntervalCode> frontier = new ArrayDeque<>();
+			frontier.push(compact);
+			while (!frontier.isEmpty()) {
+				Cancellation.check();
+				SpecificIntervalCode currentS = frontier.pop();
+				Truth t = P.applyInterval(currentS.getVariableIntervalCode());
+				if (t.isFalse()) {
+					continue;
+				} else if (t.isTrue()) {
+					return new TernaryBoehmReal(currentS.getLeftEndpoint());
+				}
+				if (currentS.getPrec() >= P.delta) {
+					TernaryBoehmReal x = new TernaryBoehmReal(currentS.getLeftEndpoint());
+					if (P.getPredicate().apply(x)) {
+						return x;
+					}
+					continue;
+				}
+				if (currentS.getPrec() >= limit) {
+					// Still UNKNOWN, so left for the next round
+					cut = true;
+					continue;
+				}
+				List<SpecificIntervalCode> children = subdivision.children(currentS, P.delta);
+				for (int i = children.size() - 1; i >= 0; i--) {
+					frontier.push(children.get(i));
+				}
+			}
+		} while (cut);
+		return new TernaryBoehmReal(666);
+	}
+	
+	static boolean eclipses(VariableIntervalCode fx, VariableIntervalCode fy) {
 		if (fx.getPrec() > fy.getPrec()) {
 			fy = fy.down(fx.getPrec() - fy.getPrec());
 		} else if (fx.getPrec() < fy.getPrec()) {
@@ -92,68 +201,377 @@ public class Searchers {
 		return (fx.getRightCode().compareTo(fy.getLeftCode()) < 0);
 	}
 
+	/*
+	 * Encloses F on (at least) the given number of evenly spaced boxes of the
+	 * compact interval, finer than it by SAMPLE_LEVELS precision-levels, and
+	 * returns the smallest right endpoint found as the degenerate interval
+	 * [u,u]. Every minimum of F on the compact interval is at most u, so any
+	 * image strictly above u can be pruned.
+	 * 
+	 * The exact approximators need not round outward (inverse() rounds
+	 * down), so a sample is evaluated in the outward-rounded double interval
+	 * arithmetic when F has it. Otherwise the sample is enclosed by F, which
+	 * is as sound as the enclosures the minimisers prune with. In parallel,
+	 * the samples run in the cancellation context of the caller.
+	 */
+	public static VariableIntervalCode sampleUpperBound(FunctionCode F, SpecificIntervalCode compact, int samples, boolean parallel) {
+		int k = 32 - Integer.numberOfLeadingZeros(Math.max(samples, 1) - 1);
+		int prec = compact.getPrec() + k + SAMPLE_LEVELS;
+		BigInteger start = compact.getCode().shiftLeft(k + SAMPLE_LEVELS);
+		IntStream points = IntStream.rangeClosed(0, 1 << k);
+		Cancellation context = Cancellation.current();
+		if (parallel) {
+			points = points.parallel();
+		}
+		DyadicCode u = points.mapToObj(j -> {
+				// The boxes start at the points j/2^k of the compact interval and lie inside it
+				BigInteger x = start.add(BigInteger.valueOf(j).shiftLeft(SAMPLE_LEVELS + 1));
+				BigInteger l = j == 1 << k ? x.subtract(BigInteger.TWO) : x;
+				VariableIntervalCode box = new VariableIntervalCode(l, l.add(BigInteger.TWO), prec);
+				if (context == null) {
+					return sample(F, box);
+				}
+				return context.run(() -> sample(F, box));
+			}).reduce((x,y) -> x.min(y)).get();
+		return new VariableIntervalCode(u.getNum(), u.getNum(), u.getDen());
+	}
+	
+	// An upper bound of the minimum of F on the box
+	private static DyadicCode sample(FunctionCode F, VariableIntervalCode box) {
+		Cancellation.check();
+		if (F.hasDoubleApproximator()) {
+			double u = F.applyDouble(Arrays.asList(DoubleInterval.of(box))).getHi();
+			if (Double.isFinite(u)) {
+				return DoubleInterval.toDyadic(u);
+			}
+		}
+		return F.enclose(Arrays.asList(box)).getRightEndpoint();
+	}
+	
 	public static TernaryBoehmReal minimise(FunctionCode F, SpecificIntervalCode compact, int epsilon) {
+		return minimise(F, compact, epsilon, SAMPLES);
+	}
+	
+	public static TernaryBoehmReal minimise(FunctionCode F, SpecificIntervalCode compact, int epsilon, int samples) {
+		MinimisationResult result = minimiseAll(F, compact, epsilon, samples);
+		if (!result.isEmpty()) {
+			return new TernaryBoehmReal(result.getBoxes().get(0).getFst());
+		}
+		return new TernaryBoehmReal(666);
+	}
+	
+	public static MinimisationResult minimiseAll(FunctionCode F, SpecificIntervalCode compact, int epsilon) {
+		return minimiseAll(F, compact, epsilon, SAMPLES);
+	}
+	
+	/*
+	 * Returns every box that may contain a global minimiser of F on the
+	 * compact interval. A box is only ever discarded when its image lies
+	 * strictly above the image of another box, so boxes sharing the minimum
+	 * all survive to the result.
+	 */
+	public static MinimisationResult minimiseAll(FunctionCode F, SpecificIntervalCode compact, int epsilon, int samples) {
+		return minimiseAll(F, compact, epsilon, samples, null);
+	}
+	
+	/*
+	 * As above, saving the frontier, answers, upper bound and number of checks
+	 * to the checkpoint as the search goes. If the checkpoint already holds a
+	 * state, the search resumes from it.
+	 */
+	public static MinimisationResult minimiseAll(FunctionCode F, SpecificIntervalCode compact, int epsilon, int samples, Checkpoint checkpoint) {
+		return minimiseAll(F, compact, epsilon, samples, Subdivision.binary(), checkpoint);
+	}
+	
+	/*
+	 * As above, splitting each box into the children given by the
+	 * subdivision. A child is dropped when the image of one of its siblings
+	 * lies strictly below its own.
+	 */
+	public static MinimisationResult minimiseAll(FunctionCode F, SpecificIntervalCode compact, int epsilon, int samples,
+			Subdivision subdivision, Checkpoint checkpoint) {
 		int delta = F.getUniformContinuityOracle(compact).apply(epsilon).get(0);
 		System.out.println("Delta = " + delta);
-		VariableIntervalCode fcompact = F.apply(Arrays.asList(compact.getVariableIntervalCode()));
-		if (compact.getPrec() >= delta || fcompact.join_prime().getPrec() >= epsilon) {
-			return new TernaryBoehmReal(compact);
-		}
-		ArrayList<Pair<SpecificIntervalCode,VariableIntervalCode>> frontier = new ArrayList<>();
-		ArrayList<Pair<SpecificIntervalCode,VariableIntervalCode>> answers = new ArrayList<>();
-		ArrayList<SpecificIntervalCode> history = new ArrayList<>();
-		frontier.add(new Pair<>(compact,fcompact));
-		history.add(compact);
-		int checks = 0;
+		VariableIntervalCode fcompact = F.enclose(Arrays.asList(compact.getVariableIntervalCode()));
+		if (compact.getPrec() >= delta || fcompact.joinPrec() >= epsilon) {
+			MinimisationResult result = MinimisationResult.of(Arrays.asList(new Pair<>(compact,fcompact)));
+			return result.withContinuation(new MinimisationResult.Continuation(F, compact, epsilon, subdivision, result.getBoxes(),
+					new VariableIntervalCode(fcompact.getRightCode(), fcompact.getRightCode(), fcompact.getPrec())));
+		}
+		FrontierStore frontier = new FrontierStore();
+		FrontierStore answers = new FrontierStore();
+		HashSet<SpecificIntervalCode> history = new HashSet<>();
+		VariableIntervalCode bound;
+		long checks = 0;
+		Checkpoint.State saved = checkpoint == null ? null : checkpoint.load("minimiseAll", Checkpoint.problem(F, compact, epsilon), 1);
+		if (saved != null) {
+			frontier.addAll(saved.frontier);
+			answers.addAll(saved.answers);
+			bound = saved.bound;
+			checks = saved.counters[0];
+		} else {
+			bound = new VariableIntervalCode(fcompact.getRightCode(), fcompact.getRightCode(), fcompact.getPrec());
+			if (samples > 0) {
+				bound = sampleUpperBound(F, compact, samples, true);
+			}
+			frontier.add(compact,fcompact);
+			history.add(compact);
+		}
+		return branchAndBound(F, compact, epsilon, delta, subdivision, checkpoint, frontier, answers, history, bound, checks);
+	}
+	
+	/*
+	 * Continues a minimisation on a finer precision-level epsilon from where
+	 * it stopped. Every box it dropped had an image strictly above that of
+	 * another box, which does not depend on epsilon, so only the boxes in
+	 * its result are searched further, starting from its upper bound.
+	 */
+	public static MinimisationResult minimiseAll(MinimisationResult.Continuation from, int epsilon) {
+		if (epsilon <= from.getEpsilon()) {
+			return MinimisationResult.of(from.getBoxes()).withContinuation(from);
+		}
+		FunctionCode F = from.getFunction();
+		int delta = F.getUniformContinuityOracle(from.getCompact()).apply(epsilon).get(0);
+		FrontierStore frontier = new FrontierStore();
+		FrontierStore answers = new FrontierStore();
+		HashSet<SpecificIntervalCode> history = new HashSet<>();
+		for (Pair<SpecificIntervalCode,VariableIntervalCode> box : from.getBoxes()) {
+			if (box.getFst().getPrec() >= delta || box.getSnd().joinPrec() >= epsilon) {
+				answers.add(box);
+			} else {
+				frontier.add(box);
+			}
+			history.add(box.getFst());
+		}
+		return branchAndBound(F, from.getCompact(), epsilon, delta, from.getSubdivision(), null,
+				frontier, answers, history, from.getBound(), 0);
+	}
+	
+	// The search of minimiseAll, from the given frontier, answers and upper bound
+	private static MinimisationResult branchAndBound(FunctionCode F, SpecificIntervalCode compact, int epsilon, int delta,
+			Subdivision subdivision, Checkpoint checkpoint, FrontierStore frontier, FrontierStore answers,
+			HashSet<SpecificIntervalCode> history, VariableIntervalCode bound, long checks) {
 		while (!frontier.isEmpty()) {
+			Cancellation.check();
 			checks++;
+			if (checkpoint != null) {
+				checkpoint.tick(minimiseState(F, compact, epsilon, frontier, answers, bound, checks));
+			}
 			int index = (int) (Math.random() * frontier.size());
-			SpecificIntervalCode current = frontier.get(index).getFst();
+			SpecificIntervalCode current = frontier.getInterval(index);
 			frontier.remove(index);
-			SpecificIntervalCode left = current.downLeft();
-			VariableIntervalCode fleft = F.apply(Arrays.asList(left.getVariableIntervalCode()));
-			SpecificIntervalCode right = current.downRight();
-			VariableIntervalCode fright = F.apply(Arrays.asList(right.getVariableIntervalCode()));
-			Pair<SpecificIntervalCode,VariableIntervalCode> leftfleft = new Pair<>(left,fleft);
-			Pair<SpecificIntervalCode,VariableIntervalCode> rightfright = new Pair<>(right,fright);
-			frontier.removeIf(y -> eclipses(fleft,y.getSnd()) || eclipses(fright,y.getSnd()));
-			answers.removeIf(y -> eclipses(fleft,y.getSnd()) || eclipses(fright,y.getSnd()));
-			boolean addLeft = true;
-			boolean addRight = true;
-			if (eclipses(fleft, fright) || history.contains(right)) {
-				addRight = false;
-			} 
-			if ((addRight && eclipses(fright, fleft)) || history.contains(left)) {
-				addLeft = false;
-			}
-			history.add(left);
-			history.add(right);
-			if (addLeft && (frontier.stream().anyMatch(y -> eclipses(y.getSnd(),fleft)) || answers.stream().anyMatch(y -> eclipses(y.getSnd(),fleft)))) {
-				addLeft = false;
-			}
-			if (addRight && (frontier.stream().anyMatch(y -> eclipses(y.getSnd(),fright)) || answers.stream().anyMatch(y -> eclipses(y.getSnd(),fright)))) {
-				addRight = false;
-			}
-			if (addLeft) {
-				if (left.getPrec() >= delta || fleft.join_prime().getPrec() >= epsilon) {
-					answers.add(leftfleft);
+			List<SpecificIntervalCode> children = subdivision.children(current, delta);
+			boolean[] pruned = prefilter(F, children, bound);
+			List<VariableIntervalCode> fchildren = new ArrayList<>(children.size());
+			for (int i = 0; i < children.size(); i++) {
+				if (pruned[i]) {
+					fchildren.add(null);
+					continue;
+				}
+				VariableIntervalCode fchild = F.enclose(Arrays.asList(children.get(i).getVariableIntervalCode()));
+				fchildren.add(fchild);
+				frontier.removeEclipsedBy(fchild);
+				answers.removeEclipsedBy(fchild);
+			}
+			for (int i = 0; i < children.size(); i++) {
+				SpecificIntervalCode child = children.get(i);
+				VariableIntervalCode fchild = fchildren.get(i);
+				if (fchild == null) {
+					continue;
+				}
+				boolean add = !history.contains(child) && !eclipses(bound, fchild);
+				for (int j = 0; add && j < children.size(); j++) {
+					if (j != i && fchildren.get(j) != null && eclipses(fchildren.get(j), fchild)) {
+						add = false;
+					}
+				}
+				history.add(child);
+				if (add && (frontier.anyEclipses(fchild) || answers.anyEclipses(fchild))) {
+					add = false;
+				}
+				if (add) {
+					if (child.getPrec() >= delta || fchild.joinPrec() >= epsilon) {
+						answers.add(child,fchild);
+					} else {
+						frontier.add(child,fchild);
+					}
+				}
+			}
+		}
+		if (checkpoint != null) {
+			checkpoint.save(minimiseState(F, compact, epsilon, frontier, answers, bound, checks).get());
+		}
+		MinimisationResult result = MinimisationResult.of(answers.toList());
+		if (!result.isEmpty()) {
+			// The least right endpoint of the answers may be below the bound
+			VariableIntervalCode u = result.getMinimum();
+			u = new VariableIntervalCode(u.getRightCode(), u.getRightCode(), u.getPrec());
+			bound = eclipses(u, bound) ? u : bound;
+		}
+		return result.withContinuation(new MinimisationResult.Continuation(F, compact, epsilon, subdivision, result.getBoxes(), bound));
+	}
+	
+	/*
+	 * The first tier of the minimisers: evaluates F on each child in double
+	 * interval arithmetic, and marks the children whose image lies strictly
+	 * above the upper bound or strictly above the image of a sibling. These
+	 * cannot contain a minimiser, so they are never evaluated exactly. Nothing
+	 * is marked if F has no double approximator.
+	 */
+	static boolean[] prefilter(FunctionCode F, List<SpecificIntervalCode> children, VariableIntervalCode bound) {
+		boolean[] pruned = new boolean[children.size()];
+		if (!F.hasDoubleApproximator()) {
+			return pruned;
+		}
+		DoubleInterval[] images = new DoubleInterval[children.size()];
+		double u = bound == null ? Double.POSITIVE_INFINITY : DoubleInterval.of(bound).getHi();
+		for (int i = 0; i < children.size(); i++) {
+			images[i] = F.applyDouble(Arrays.asList(DoubleInterval.of(children.get(i).getVariableIntervalCode())));
+			u = Math.min(u, images[i].getHi());
+		}
+		for (int i = 0; i < children.size(); i++) {
+			pruned[i] = images[i].getLo() > u;
+		}
+		return pruned;
+	}
+	
+	private static Supplier<Checkpoint.State> minimiseState(FunctionCode F, SpecificIntervalCode compact, int epsilon,
+			FrontierStore frontier, FrontierStore answers, VariableIntervalCode bound, long checks) {
+		return () -> {
+			Checkpoint.State state = new Checkpoint.State("minimiseAll", Checkpoint.problem(F, compact, epsilon));
+			state.frontier = frontier.toList();
+			state.answers = answers.toList();
+			state.bound = bound;
+			state.counters = new long[] { checks };
+			return state;
+		};
+	}
+	
+	/*
+	 * As minimiseAll, but keeping at most capacity intervals of the frontier in
+	 * memory and spilling the rest to temporary files.
+	 */
+	public static MinimisationResult minimiseBounded(FunctionCode F, SpecificIntervalCode compact, int epsilon, int capacity) {
+		Optimisation2 optimisation = Optimisation2.bounded(F, compact.getVariableIntervalCode(), epsilon, capacity);
+		optimisation.minimise();
+		return optimisation.getMinimisers();
+	}
+	
+	/*
+	 * Minimises F on the compact interval subject to the given constraints, in
+	 * a single branch-and-bound pass. Each box carries the constraints that are
+	 * still undecided on it; these are evaluated together with F on its
+	 * children, while constraints already satisfied by a box are not evaluated
+	 * again below it. Infeasible boxes are dropped at once, and only boxes
+	 * that satisfy every constraint may lower the upper bound on the minimum.
+	 */
+	public static MinimisationResult minimiseConstrained(FunctionCode F, List<Constraint> constraints, SpecificIntervalCode compact, int epsilon) {
+		int delta = F.getUniformContinuityOracle(compact).apply(epsilon).get(0);
+		ArrayList<Pair<Pair<SpecificIntervalCode,VariableIntervalCode>,List<Constraint>>> frontier = new ArrayList<>();
+		ArrayList<Pair<SpecificIntervalCode,VariableIntervalCode>> feasible = new ArrayList<>();
+		ArrayList<Pair<SpecificIntervalCode,VariableIntervalCode>> unproven = new ArrayList<>();
+		DyadicCode bound = null;
+		frontier.add(new Pair<>(new Pair<>(compact, null), constraints));
+		while (!frontier.isEmpty()) {
+			Cancellation.check();
+			Pair<Pair<SpecificIntervalCode,VariableIntervalCode>,List<Constraint>> current = frontier.remove(frontier.size() - 1);
+			VariableIntervalCode fcurrent = current.getFst().getSnd();
+			if (bound != null && fcurrent != null && fcurrent.getLeftEndpoint().compare(bound) > 0) {
+				continue;
+			}
+			SpecificIntervalCode box = current.getFst().getFst();
+			List<SpecificIntervalCode> children = fcurrent == null ? Arrays.asList(box) : Arrays.asList(box.downLeft(), box.downRight());
+			for (SpecificIntervalCode child : children) {
+				List<Constraint> undecided = current.getSnd();
+				List<FunctionCode> fs = new ArrayList<>(Arrays.asList(F));
+				fs.addAll(undecided.stream().map(c -> c.getFunction()).toList());
+				List<VariableIntervalCode> images = FunctionCode.encloseAll(fs, Arrays.asList(child.getVariableIntervalCode()));
+				VariableIntervalCode fchild = images.get(0);
+				List<Constraint> remaining = new ArrayList<>();
+				boolean infeasible = false;
+				for (int i = 0; i < undecided.size() && !infeasible; i++) {
+					Constraint.Feasibility status = undecided.get(i).classify(images.get(i + 1));
+					if (status == Constraint.Feasibility.INFEASIBLE) {
+						infeasible = true;
+					} else if (status == Constraint.Feasibility.UNDECIDED) {
+						remaining.add(undecided.get(i));
+					}
+				}
+				if (infeasible || (bound != null && fchild.getLeftEndpoint().compare(bound) > 0)) {
+					continue;
+				}
+				if (remaining.isEmpty()) {
+					bound = bound == null ? fchild.getRightEndpoint() : bound.min(fchild.getRightEndpoint());
+				}
+				if (child.getPrec() >= delta || fchild.joinPrec() >= epsilon) {
+					if (remaining.isEmpty()) {
+						feasible.add(new Pair<>(child, fchild));
+					} else {
+						unproven.add(new Pair<>(child, fchild));
+					}
 				} else {
-					frontier.add(leftfleft);
+					frontier.add(new Pair<>(new Pair<>(child, fchild), remaining));
 				}
 			}
-			if (addRight) {
-				if (right.getPrec() >= delta || fright.join_prime().getPrec() >= epsilon) {
-					answers.add(rightfright);
+		}
+		return MinimisationResult.of(feasible, unproven, bound);
+	}
+	
+	/*
+	 * Encloses the range of F on the compact interval, computing the minimum
+	 * and the maximum in the same subdivision pass. Throughout the search the
+	 * least right endpoint and the greatest left endpoint seen so far bound
+	 * the minimum from above and the maximum from below; a box whose image
+	 * lies strictly between the two can affect neither end of the range and is
+	 * pruned.
+	 */
+	public static VariableIntervalCode range(FunctionCode F, SpecificIntervalCode compact, int epsilon) {
+		int delta = F.getUniformContinuityOracle(compact).apply(epsilon).get(0);
+		VariableIntervalCode fcompact = F.enclose(Arrays.asList(compact.getVariableIntervalCode()));
+		DyadicCode minUpper = fcompact.getRightEndpoint();
+		DyadicCode maxLower = fcompact.getLeftEndpoint();
+		FrontierStore frontier = new FrontierStore();
+		ArrayList<Pair<SpecificIntervalCode,VariableIntervalCode>> terminal = new ArrayList<>();
+		if (compact.getPrec() >= delta || fcompact.joinPrec() >= epsilon) {
+			terminal.add(new Pair<>(compact, fcompact));
+		} else {
+			frontier.add(compact, fcompact);
+		}
+		while (!frontier.isEmpty()) {
+			Cancellation.check();
+			SpecificIntervalCode current = frontier.getInterval(frontier.size() - 1);
+			VariableIntervalCode fcurrent = frontier.getOutput(frontier.size() - 1);
+			frontier.remove(frontier.size() - 1);
+			if (fcurrent.getLeftEndpoint().compare(minUpper) > 0 && fcurrent.getRightEndpoint().compare(maxLower) < 0) {
+				continue;
+			}
+			for (SpecificIntervalCode child : Arrays.asList(current.downLeft(), current.downRight())) {
+				VariableIntervalCode fchild = F.enclose(Arrays.asList(child.getVariableIntervalCode()));
+				minUpper = minUpper.min(fchild.getRightEndpoint());
+				maxLower = maxLower.max(fchild.getLeftEndpoint());
+				if (fchild.getLeftEndpoint().compare(minUpper) > 0 && fchild.getRightEndpoint().compare(maxLower) < 0) {
+					continue;
+				}
+				if (child.getPrec() >= delta || fchild.joinPrec() >= epsilon) {
+					terminal.add(new Pair<>(child, fchild));
 				} else {
-					frontier.add(rightfright);
+					frontier.add(child, fchild);
 				}
 			}
 		}
-		if (answers.size() > 0) {
-			return new TernaryBoehmReal(answers.get(0).getFst());
-
+		DyadicCode lower = minUpper;
+		DyadicCode upper = maxLower;
+		for (Pair<SpecificIntervalCode,VariableIntervalCode> t : terminal) {
+			if (t.getSnd().getLeftEndpoint().compare(minUpper) <= 0) {
+				lower = lower.min(t.getSnd().getLeftEndpoint());
+			}
+			if (t.getSnd().getRightEndpoint().compare(maxLower) >= 0) {
+				upper = upper.max(t.getSnd().getRightEndpoint());
+			}
 		}
-		return new TernaryBoehmReal(666);
+		int prec = Math.max(lower.getDen(), upper.getDen());
+		return new VariableIntervalCode(lower.downLeft(prec - lower.getDen()).getNum(),
+				upper.downLeft(prec - upper.getDen()).getNum(), prec);
 	}
 	
 	/*
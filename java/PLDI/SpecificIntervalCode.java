@@ -8,75 +8,114 @@ public class SpecificIntervalCode {
 	// Implementation of type I := Z x Z
 	// Only holds interval codes of form (l,l+2,p) in order to represent [l/2^{p},(l+2)/2^{p}]
 	
+	/*
+	 * Only the left code and the precision-level are stored; the right code is
+	 * always l+2, so the variable interval code is built the first time it is
+	 * asked for and then kept. The moves through the ternary tree work on the
+	 * left code directly, so each move allocates one code and nothing else.
+	 */
+	
 	private static final BigInteger Frontier = null;
+	private final BigInteger left;
+	private final int prec;
 	private VariableIntervalCode code;
 	
 	public SpecificIntervalCode(BigInteger left, int prec) {
-		this.code = new VariableIntervalCode(left, left.add(BigInteger.TWO), prec);
+		this.left = left;
+		this.prec = prec;
 	}
 	
 	public SpecificIntervalCode(DyadicCode dyadic) {
-		this.code = new VariableIntervalCode(dyadic.getNum(), dyadic.getNum().add(BigInteger.TWO), dyadic.getDen());
+		this(dyadic.getNum(), dyadic.getDen());
 	}
 	
 	public SpecificIntervalCode(TernaryBoehmReal x, int prec) {
-		this.code = new VariableIntervalCode(x.approx(prec), x.approx(prec).add(BigInteger.TWO), prec);
+		this(x.approx(prec), prec);
 	}
 	
 	public VariableIntervalCode getVariableIntervalCode() {
+		if (code == null) {
+			code = new VariableIntervalCode(left, left.add(BigInteger.TWO), prec);
+		}
 		return code;
 	}
 	
 	public SpecificIntervalCode(VariableIntervalCode variable) {
-		this.code = variable.join_prime().getVariableIntervalCode();
+		SpecificIntervalCode s = variable.join_prime();
+		this.left = s.left;
+		this.prec = s.prec;
 	}
 	
 	public DyadicCode getLeftEndpoint() {
-		return code.getLeftEndpoint();
+		return new DyadicCode(left, prec);
 	}
 	
 	public DyadicCode getRightEndpoint() {
-		return code.getRightEndpoint();
+		return new DyadicCode(left.add(BigInteger.TWO), prec);
 	}
 	
 	public BigInteger getCode() {
-		return code.getLeftCode();
+		return left;
 	}
 	
 	public int getPrec() {
-		return code.getPrec();
+		return prec;
 	}
 	
 	public String toString() {
-		return code.toString();
+		return getVariableIntervalCode().toString();
+	}
+	
+	public boolean equals(Object o) {
+		if (!(o instanceof SpecificIntervalCode)) {
+			return false;
+		}
+		SpecificIntervalCode s = (SpecificIntervalCode) o;
+		return prec == s.prec && left.equals(s.left);
 	}
 	
+	public int hashCode() {
+		return 31 * left.hashCode() + prec;
+	}
+	
+	// Structural
+	
 	public SpecificIntervalCode downLeft() {
-		return new SpecificIntervalCode(code.downLeft());
+		return new SpecificIntervalCode(left.shiftLeft(1), prec + 1);
 	}
 	
 	public SpecificIntervalCode downMid() {
-		return new SpecificIntervalCode(new DyadicCode(code.getLeftCode().add(BigInteger.ONE), code.getPrec() + 1));
+		return new SpecificIntervalCode(left.add(BigInteger.ONE), prec + 1);
 	}
 	
 	public SpecificIntervalCode downRight() {
-		return new SpecificIntervalCode(code.downRight());
+		return new SpecificIntervalCode(left.shiftLeft(1).add(BigInteger.TWO), prec + 1);
 	}
 	
 	public SpecificIntervalCode downLeft(int n) {
-		return new SpecificIntervalCode(code.downLeft(n));
+		if (n <= 0) {
+			return this;
+		}
+		return new SpecificIntervalCode(left.shiftLeft(n), prec + n);
 	}
 	
+	// The rightmost descendant n levels down has code 2^n*l + 2(2^n - 1)
 	public SpecificIntervalCode downRight(int n) {
-		return new SpecificIntervalCode(code.downRight(n));
+		if (n <= 0) {
+			return this;
+		}
+		return new SpecificIntervalCode(left.add(BigInteger.TWO).shiftLeft(n).subtract(BigInteger.TWO), prec + n);
 	}
 	
 	public SpecificIntervalCode upRight() {
-		return new SpecificIntervalCode(code.getLeftEndpoint().upRight());
+		return new SpecificIntervalCode(left.shiftRight(1), prec - 1);
 	}
 	
 	public SpecificIntervalCode upRight(int n) {
-		return new SpecificIntervalCode(code.getLeftEndpoint().upRight(n));
+		if (n <= 0) {
+			return this;
+		}
+		return new SpecificIntervalCode(left.shiftRight(n), prec - n);
 	}
 	
     /*
@@ -125,7 +164,7 @@ public class SpecificIntervalCode {
         BigInteger current = initial.downLeft(delta - initial.getPrec()).getCode();
         BigInteger end = initial.downRight(delta - initial.getPrec()).getCode();
         while (current.compareTo(end) < 1) {
-            frontier.add(new SpecificIntervalCode(new DyadicCode(current,delta)));
+            frontier.add(new SpecificIntervalCode(current, delta));
             current = current.add(BigInteger.TWO);
         }  
 
@@ -0,0 +1,252 @@
+package PLDI;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/*
+ * A frontier of (interval, output) pairs for minimisation that keeps at most
+ * a fixed number of nodes on the heap.
+ *
+ * Nodes are ordered by the left endpoint of their output, so the most
+ * promising node is the one whose output may be the smallest. When the heap
+ * grows past its capacity, its worse half is sorted and streamed to a
+ * temporary file (a "run"), each node encoded as the varints of its code,
+ * precision-level and output. A run is read back through a buffered stream,
+ * which is closed before the file is deleted. Every run is sorted, so polling
+ * compares the best node on the heap with the first unread node of the runs,
+ * which wait in a second heap ordered by that node, and the nodes come back
+ * in priority order.
+ *
+ * Each run holds an open file and its buffer, so once there are more than
+ * FAN_IN runs the FAN_IN shortest are merged into one. The number of open
+ * files, and the memory of their buffers, thus stays bounded however many
+ * nodes are spilled, and as the runs merged are about the same length each
+ * node is rewritten only about log_FAN_IN(spilled / capacity) times.
+ */
+public class SpillingFrontier {
+
+	private static final Comparator<Pair<SpecificIntervalCode,VariableIntervalCode>> PRIORITY =
+			(x,y) -> x.getSnd().getLeftEndpoint().compare(y.getSnd().getLeftEndpoint());
+	private static final Comparator<Run> HEAD = (x,y) -> PRIORITY.compare(x.head, y.head);
+
+	private static final int FAN_IN = 8; // Runs merged at once, and at most open between spills
+
+	private int capacity;
+	private PriorityQueue<Pair<SpecificIntervalCode,VariableIntervalCode>> heap = new PriorityQueue<>(PRIORITY);
+	private PriorityQueue<Run> runs = new PriorityQueue<>(HEAD);
+	private long spilled = 0;
+
+	// A sorted file of spilled nodes, and the first of them not yet read
+	private static class Run {
+		Path file;
+		DataInputStream in;
+		int size;
+		int remaining;
+		Pair<SpecificIntervalCode,VariableIntervalCode> head;
+	}
+
+	public SpillingFrontier(int capacity) {
+		this.capacity = Math.max(capacity, 2);
+	}
+
+	// Getters
+
+	public boolean isEmpty() {
+		return heap.isEmpty() && runs.isEmpty();
+	}
+
+	public long size() {
+		long n = heap.size();
+		for (Run run : runs) {
+			n += run.remaining + 1;
+		}
+		return n;
+	}
+
+	public int heapSize() {
+		return heap.size();
+	}
+
+	public long getSpilled() {
+		return spilled;
+	}
+
+	/*
+	 * Every node of the frontier, including the spilled ones, in no
+	 * particular order. This reads the runs again from their files, without
+	 * consuming them.
+	 */
+	public List<Pair<SpecificIntervalCode,VariableIntervalCode>> toList() {
+		List<Pair<SpecificIntervalCode,VariableIntervalCode>> nodes = new ArrayList<>(heap);
+		for (Run run : runs) {
+			try (DataInputStream in = open(run.file)) {
+				for (int i = 0; i < run.size; i++) {
+					Pair<SpecificIntervalCode,VariableIntervalCode> node = read(in);
+					if (i >= run.size - run.remaining - 1) {
+						nodes.add(node);
+					}
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return nodes;
+	}
+
+	// Adding and removing
+
+	public void add(Pair<SpecificIntervalCode,VariableIntervalCode> node) {
+		heap.add(node);
+		if (heap.size() > capacity) {
+			spill();
+		}
+	}
+
+	public Pair<SpecificIntervalCode,VariableIntervalCode> poll() {
+		Run best = runs.peek();
+		if (best == null || (!heap.isEmpty() && PRIORITY.compare(heap.peek(), best.head) <= 0)) {
+			return heap.poll();
+		}
+		runs.poll();
+		Pair<SpecificIntervalCode,VariableIntervalCode> node = best.head;
+		if (advance(best)) {
+			runs.add(best);
+		}
+		return node;
+	}
+
+	/*
+	 * Removes the nodes on the heap whose output lies strictly above the
+	 * bound. Spilled nodes are checked when they are polled instead.
+	 */
+	public void prune(VariableIntervalCode bound) {
+		heap.removeIf(node -> Searchers.eclipses(bound, node.getSnd()));
+	}
+
+	public void close() {
+		for (Run run : runs) {
+			delete(run);
+		}
+		runs.clear();
+		heap.clear();
+	}
+
+	// Spilling
+
+	private void spill() {
+		List<Pair<SpecificIntervalCode,VariableIntervalCode>> nodes = new ArrayList<>(heap);
+		nodes.sort(PRIORITY);
+		heap.clear();
+		heap.addAll(nodes.subList(0, capacity / 2));
+		List<Pair<SpecificIntervalCode,VariableIntervalCode>> worse = nodes.subList(capacity / 2, nodes.size());
+		try {
+			Run run = new Run();
+			run.file = Files.createTempFile("frontier", ".run");
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run.file)))) {
+				for (Pair<SpecificIntervalCode,VariableIntervalCode> node : worse) {
+					write(out, node);
+				}
+			}
+			spilled += worse.size();
+			start(run, worse.size());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (runs.size() > FAN_IN) {
+			merge();
+		}
+	}
+
+	// Merges the FAN_IN runs with the fewest unread nodes into one
+	private void merge() {
+		List<Run> shortest = new ArrayList<>(runs);
+		shortest.sort(Comparator.comparingInt((Run run) -> run.remaining));
+		PriorityQueue<Run> merging = new PriorityQueue<>(HEAD);
+		for (Run run : shortest.subList(0, FAN_IN)) {
+			runs.remove(run);
+			merging.add(run);
+		}
+		try {
+			Run run = new Run();
+			run.file = Files.createTempFile("frontier", ".run");
+			int size = 0;
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run.file)))) {
+				while (!merging.isEmpty()) {
+					Run next = merging.poll();
+					write(out, next.head);
+					size++;
+					if (advance(next)) {
+						merging.add(next);
+					}
+				}
+			}
+			start(run, size);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// Opens the run, which has just been written with size nodes, and adds it to the runs
+	private void start(Run run, int size) throws IOException {
+		run.in = open(run.file);
+		run.size = size;
+		run.remaining = size;
+		if (advance(run)) {
+			runs.add(run);
+		}
+	}
+
+	// Reads the next node of the run into its head, or deletes the run if there is none, which gives false
+	private boolean advance(Run run) {
+		if (run.remaining == 0) {
+			delete(run);
+			return false;
+		}
+		try {
+			run.head = read(run.in);
+			run.remaining--;
+			return true;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static DataInputStream open(Path file) throws IOException {
+		return new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+	}
+
+	private static void write(DataOutputStream out, Pair<SpecificIntervalCode,VariableIntervalCode> node) throws IOException {
+		Checkpoint.writeBigInteger(out, node.getFst().getCode());
+		Checkpoint.writeVarInt(out, node.getFst().getPrec());
+		Checkpoint.writeBigInteger(out, node.getSnd().getLeftCode());
+		Checkpoint.writeBigInteger(out, node.getSnd().getRightCode());
+		Checkpoint.writeVarInt(out, node.getSnd().getPrec());
+	}
+
+	private static Pair<SpecificIntervalCode,VariableIntervalCode> read(DataInputStream in) throws IOException {
+		SpecificIntervalCode s = new SpecificIntervalCode(Checkpoint.readBigInteger(in), Checkpoint.readVarInt(in));
+		VariableIntervalCode v = new VariableIntervalCode(Checkpoint.readBigInteger(in),
+				Checkpoint.readBigInteger(in), Checkpoint.readVarInt(in));
+		return new Pair<>(s, v);
+	}
+
+	private static void delete(Run run) {
+		try {
+			run.in.close();
+			Files.deleteIfExists(run.file);
+		} catch (IOException e) {
+			// The file is in the temporary directory, so it is left behind
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+package PLDI;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/*
+ * How a search splits a specific interval code into children.
+ *
+ * The ternary subdivision gives the three overlapping children downLeft,
+ * downMid and downRight, as in exhaustive search. The k-ary subdivisions,
+ * for k = 2^m, go m precision-levels down at once and give the k disjoint
+ * codes (2^m l + 2j, p + m), so the binary subdivision is downLeft and
+ * downRight. The adaptive subdivision goes down several levels at once while
+ * the interval is far from the target precision-level of the search, and one
+ * level at a time close to it.
+ *
+ * The children are never finer than the target precision-level (when the
+ * interval is coarser than it), so a search still stops at that level.
+ */
+public class Subdivision {
+
+	private BiFunction<SpecificIntervalCode,Integer,List<SpecificIntervalCode>> split;
+	private String name;
+
+	private Subdivision(String name, BiFunction<SpecificIntervalCode,Integer,List<SpecificIntervalCode>> split) {
+		this.name = name;
+		this.split = split;
+	}
+
+	public List<SpecificIntervalCode> children(SpecificIntervalCode s, int target) {
+		return split.apply(s, target);
+	}
+
+	// Subdivisions
+
+	public static Subdivision binary() {
+		return kary(2);
+	}
+
+	public static Subdivision ternary() {
+		return new Subdivision("ternary", (s, target) -> Arrays.asList(s.downLeft(), s.downMid(), s.downRight()));
+	}
+
+	public static Subdivision kary(int k) {
+		if (k == 3) {
+			return ternary();
+		}
+		if (k < 2 || Integer.bitCount(k) != 1) {
+			throw new IllegalArgumentException("Subdivision into " + k + " children is not supported");
+		}
+		int m = Integer.numberOfTrailingZeros(k);
+		return new Subdivision(k + "-ary", (s, target) -> split(s, levels(s, m, target)));
+	}
+
+	// Up to maxLevels levels at once: half of the levels left to the target
+	public static Subdivision adaptive(int maxLevels) {
+		return new Subdivision("adaptive", (s, target) -> {
+			int m = Math.min(maxLevels, (target - s.getPrec()) / 2);
+			return split(s, levels(s, Math.max(m, 1), target));
+		});
+	}
+
+	public static Subdivision adaptive() {
+		return adaptive(4);
+	}
+
+	// Splitting
+
+	private static int levels(SpecificIntervalCode s, int m, int target) {
+		if (target > s.getPrec()) {
+			return Math.min(m, target - s.getPrec());
+		}
+		return m;
+	}
+
+	// The 2^m disjoint codes m levels below s
+	private static List<SpecificIntervalCode> split(SpecificIntervalCode s, int m) {
+		List<SpecificIntervalCode> children = new ArrayList<>(1 << m);
+		BigInteger code = s.getCode().shiftLeft(m);
+		for (int j = 0; j < (1 << m); j++) {
+			children.add(new SpecificIntervalCode(code, s.getPrec() + m));
+			code = code.add(BigInteger.TWO);
+		}
+		return children;
+	}
+
+	// Printers
+
+	public String toString() {
+		return name;
+	}
+
+}
@@ -7,6 +7,7 @@ import java.util.function.Function;
 public class TernaryBoehmReal {
 
 	private Function<Integer,BigInteger> approx;
+	private Object key; // Null if the real is only known by its identity
 	
 	// Constructors
 	
@@ -21,6 +22,7 @@ public class TernaryBoehmReal {
 				return x.downLeft(prec - p).getNum();
 			}
 		};
+		this.key = dyadicKey(x);
 	}
 	
 	public TernaryBoehmReal(int n) {
@@ -35,6 +37,7 @@ public class TernaryBoehmReal {
 				return x.downLeft(prec - p).getNum();
 			}
 		};
+		this.key = dyadicKey(x);
 	}
 	
 	public TernaryBoehmReal(Function<Integer,SpecificIntervalCode> x) {
@@ -56,14 +59,40 @@ public class TernaryBoehmReal {
 				return x.downLeft(prec - p).getNum();
 			}
 		};
+		this.key = dyadicKey(s.getLeftEndpoint());
+	}
+	
+	TernaryBoehmReal withKey(Object key) {
+		this.key = key;
+		return this;
+	}
+	
+	// The dyadic in lowest terms, so that equal dyadics have equal keys
+	private static Object dyadicKey(DyadicCode x) {
+		BigInteger num = x.getNum();
+		if (num.signum() == 0) {
+			return Arrays.asList("dyadic", num, 0);
+		}
+		int k = num.getLowestSetBit();
+		return Arrays.asList("dyadic", num.shiftRight(k), x.getDen() - k);
 	}
 	
 	// Getters
 	
 	public BigInteger approx(int prec) {
+		Cancellation.check();
 		return approx.apply(prec);
 	}
 	
+	/*
+	 * A structural identity of the real: dyadics with the same value, and
+	 * functions with equal keys applied to reals with equal keys, have equal
+	 * keys. Any other real is its own key.
+	 */
+	public Object getKey() {
+		return key == null ? this : key;
+	}
+	
 	public SpecificIntervalCode approxAsSpecificIntervalCode(int prec) {
 		return new SpecificIntervalCode(approx(prec), prec);
 	}
@@ -122,7 +151,7 @@ public class TernaryBoehmReal {
 			}
 			BigInteger fourPowP = BigInteger.valueOf(4).pow(prec_);
 			return new SpecificIntervalCode(fourPowP.divide(left), prec_);
-		});
+		}).withKey(Arrays.asList("inverse", getKey()));
 	}
 	
 	public TernaryBoehmReal divide(TernaryBoehmReal y) {
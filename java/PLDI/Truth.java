@@ -0,0 +1,59 @@
+package PLDI;
+
+/*
+ * The truth value of a predicate over a whole interval: TRUE if it holds at
+ * every point of the interval, FALSE if it holds at none, and UNKNOWN if it
+ * may hold at some points but not at others, or if that cannot be told on
+ * this precision-level.
+ *
+ * The connectives are those of Kleene's strong three-valued logic, so a
+ * combination is only TRUE or FALSE when the known parts already decide it.
+ */
+public enum Truth {
+
+	TRUE, FALSE, UNKNOWN;
+
+	public static Truth of(boolean b) {
+		return b ? TRUE : FALSE;
+	}
+
+	public boolean isTrue() {
+		return this == TRUE;
+	}
+
+	public boolean isFalse() {
+		return this == FALSE;
+	}
+
+	// Connectives
+
+	public Truth not() {
+		switch (this) {
+		case TRUE:
+			return FALSE;
+		case FALSE:
+			return TRUE;
+		default:
+			return UNKNOWN;
+		}
+	}
+
+	public Truth and(Truth t) {
+		if (this == FALSE || t == FALSE) {
+			return FALSE;
+		} else if (this == TRUE && t == TRUE) {
+			return TRUE;
+		}
+		return UNKNOWN;
+	}
+
+	public Truth or(Truth t) {
+		if (this == TRUE || t == TRUE) {
+			return TRUE;
+		} else if (this == FALSE && t == FALSE) {
+			return FALSE;
+		}
+		return UNKNOWN;
+	}
+
+}
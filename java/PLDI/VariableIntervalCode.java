@@ -30,7 +30,25 @@ public class VariableIntervalCode {
 	}
 	
 	public SpecificIntervalCode join_prime() {
-		return new SpecificIntervalCode(getLeftEndpoint().upRight(right.subtract(left).bitLength() - 2));
+		int n = joinShift();
+		if (n <= 0) {
+			return new SpecificIntervalCode(left, prec);
+		}
+		return new SpecificIntervalCode(left.shiftRight(n), prec - n);
+	}
+	
+	// The precision-level of join_prime(), without building it
+	public int joinPrec() {
+		return prec - Math.max(joinShift(), 0);
+	}
+	
+	// How many levels join_prime moves up; width-2 codes are already specific
+	private int joinShift() {
+		BigInteger d = right.subtract(left);
+		if (d.equals(BigInteger.TWO)) {
+			return 0;
+		}
+		return d.bitLength() - 2;
 	}
 
 	public int getPrec() {
@@ -82,6 +100,34 @@ public class VariableIntervalCode {
 		return new VariableIntervalCode(l, r, prec + y.prec);
 	}
 	
+	/*
+	 * The intersection of two enclosures of the same value, which is again an
+	 * enclosure of that value.
+	 */
+	public VariableIntervalCode intersect(VariableIntervalCode y) {
+		VariableIntervalCode x = this;
+		if (x.prec > y.prec) {
+			y = y.down(x.prec - y.prec);
+		} else if (x.prec < y.prec) {
+			x = x.down(y.prec - x.prec);
+		}
+		BigInteger l = x.left.max(y.left);
+		BigInteger r = x.right.min(y.right);
+		if (l.compareTo(r) > 0) {
+			return x;
+		}
+		return new VariableIntervalCode(l, r, x.prec);
+	}
+	
+	// The smallest interval on precision-level p that contains this one
+	public VariableIntervalCode roundOut(int p) {
+		if (p >= prec) {
+			return this;
+		}
+		int d = prec - p;
+		return new VariableIntervalCode(left.shiftRight(d), right.negate().shiftRight(d).negate(), p);
+	}
+	
 	public String toString() {
 		return "(" + left + "," + right + "," + prec + ")";
 	}